@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.benchmarks;
+
+import io.appform.dropwizard.discovery.bundle.id.AllocationMode;
+import io.appform.dropwizard.discovery.bundle.id.Constants;
+import io.appform.dropwizard.discovery.bundle.id.ExponentAllocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and latency of the {@link AllocationMode}s on a shared allocator. A few threads are enough to use up
+ * every millisecond, so runs with more threads show how the modes behave when saturated.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AllocationModeBenchmark {
+    private static final int BATCH_SIZE = 100;
+
+    /**
+     * Per thread buffer for batch allocation
+     */
+    @State(Scope.Thread)
+    public static class Slots {
+        private final long[] slots = new long[BATCH_SIZE];
+    }
+
+    @Param({"RANDOM", "SEQUENTIAL"})
+    private AllocationMode mode;
+
+    private ExponentAllocator allocator;
+
+    @Setup
+    public void setup() {
+        allocator = mode.allocator(Constants.MAX_ID_PER_MS);
+    }
+
+    @Benchmark
+    public long allocate() {
+        return allocator.allocate();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public long allocateBatch(Slots slots) {
+        int reserved = 0;
+        while (reserved < BATCH_SIZE) {
+            reserved += allocator.allocate(slots.slots, reserved, BATCH_SIZE - reserved);
+        }
+        return slots.slots[BATCH_SIZE - 1];
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs benchmarks once for every thread count, with allocation rates reported by the GC profiler.
+ * Usage: java -jar benchmarks.jar [benchmark regex] [comma separated thread counts]
+ */
+public class BenchmarkRunner {
+    private static final String DEFAULT_INCLUDE = ".*Benchmark.*";
+    private static final String DEFAULT_THREADS = "1,4,16";
+
+    public static void main(String[] args) throws RunnerException {
+        final String include = args.length > 0
+                               ? args[0]
+                               : DEFAULT_INCLUDE;
+        final String threads = args.length > 1
+                               ? args[1]
+                               : DEFAULT_THREADS;
+        for (String numThreads : threads.split(",")) {
+            new Runner(new OptionsBuilder()
+                               .include(include)
+                               .threads(Integer.parseInt(numThreads.trim()))
+                               .addProfiler(GCProfiler.class)
+                               .build())
+                    .run();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.benchmarks;
+
+import io.appform.dropwizard.discovery.bundle.id.BulkIdParser;
+import io.appform.dropwizard.discovery.bundle.id.Id;
+import io.appform.dropwizard.discovery.bundle.id.IdGenerator;
+import io.appform.dropwizard.discovery.bundle.id.IdParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compares {@link BulkIdParser} with parsing ids one by one with {@link IdParser}.
+ * Scores are per batch of ids.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BulkIdParserBenchmark {
+
+    @Param({"1000", "100000"})
+    private int count;
+
+    private final IdParser parser = new IdParser();
+    private final BulkIdParser bulkParser = new BulkIdParser();
+    private List<String> ids;
+    private byte[] text;
+    private ByteBuffer buffer;
+    private long[] times;
+    private int[] nodes;
+    private int[] exponents;
+
+    @Setup
+    public void setup() {
+        IdGenerator.initialize(23);
+        ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(IdGenerator.generate("TXN").getId());
+        }
+        text = (String.join("\n", ids) + "\n").getBytes(StandardCharsets.US_ASCII);
+        buffer = ByteBuffer.allocateDirect(text.length);
+        buffer.put(text);
+        buffer.flip();
+        times = new long[count];
+        nodes = new int[count];
+        exponents = new int[count];
+    }
+
+    @Benchmark
+    public void perIdParse(Blackhole blackhole) {
+        for (String id : ids) {
+            final Optional<Id> parsed = parser.parse(id);
+            blackhole.consume(parsed);
+        }
+    }
+
+    @Benchmark
+    public int bulkListIntoArrays() {
+        return bulkParser.parse(ids, times, nodes, exponents);
+    }
+
+    @Benchmark
+    public int bulkBufferIntoArrays() {
+        return bulkParser.parse(buffer, times, nodes, exponents);
+    }
+
+    @Benchmark
+    public long bulkBufferVisitor() {
+        final LongAdder sum = new LongAdder();
+        bulkParser.parse(buffer, (index, time, node, exponent) -> sum.add(time + node + exponent));
+        return sum.sum();
+    }
+
+    @Benchmark
+    public long bulkStreamVisitor(Blackhole blackhole) throws IOException {
+        return bulkParser.parse(new ByteArrayInputStream(text),
+                                (index, time, node, exponent) -> blackhole.consume(time + node + exponent));
+    }
+}
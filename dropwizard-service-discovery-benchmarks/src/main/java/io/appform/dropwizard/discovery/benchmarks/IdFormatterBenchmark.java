@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.benchmarks;
+
+import io.appform.dropwizard.discovery.bundle.id.Constants;
+import io.appform.dropwizard.discovery.bundle.id.Id;
+import io.appform.dropwizard.discovery.bundle.id.IdFormatter;
+import org.joda.time.DateTime;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link IdFormatter} with the String.format + Joda path it replaced.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class IdFormatterBenchmark {
+    private static final DateTimeFormatter LEGACY_FORMATTER = DateTimeFormat.forPattern("yyMMddHHmmssSSS");
+    private static final int NODE = 23;
+
+    private IdFormatter formatter;
+    private long time;
+    private int exponent;
+
+    @Setup
+    public void setup() {
+        formatter = new IdFormatter(NODE);
+        time = System.currentTimeMillis();
+    }
+
+    @Benchmark
+    public Id legacy() {
+        final long now = nextTime();
+        final DateTime dateTime = new DateTime(now);
+        final String id = String.format("%s%s%04d%03d", "ORD", LEGACY_FORMATTER.print(dateTime), NODE, exponent);
+        return Id.builder()
+                .id(id)
+                .exponent(exponent)
+                .generatedDate(dateTime.toDate())
+                .node(NODE)
+                .build();
+    }
+
+    @Benchmark
+    public Id formatter() {
+        final long now = nextTime();
+        return new Id(formatter.format("ORD", now, exponent), new Date(now), NODE, exponent);
+    }
+
+    //Ten ids per millisecond
+    private long nextTime() {
+        exponent = (exponent + 1) % Constants.MAX_ID_PER_MS;
+        if (exponent % 10 == 0) {
+            time++;
+        }
+        return time;
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.benchmarks;
+
+import io.appform.dropwizard.discovery.bundle.id.AllocationMode;
+import io.appform.dropwizard.discovery.bundle.id.EncodedPrefix;
+import io.appform.dropwizard.discovery.bundle.id.Id;
+import io.appform.dropwizard.discovery.bundle.id.IdGenerator;
+import io.appform.dropwizard.discovery.bundle.id.constraints.IdValidationConstraint;
+import io.appform.dropwizard.discovery.bundle.id.constraints.impl.JavaHashCodeBasedKeyPartitioner;
+import io.appform.dropwizard.discovery.bundle.id.constraints.impl.MurmurBasedKeyPartitioner;
+import io.appform.dropwizard.discovery.bundle.id.constraints.impl.PartitionValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Id generation paths of {@link IdGenerator}, with and without partition constraints.
+ * Generation shares one allocator across threads, so run this with several thread counts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class IdGenerationBenchmark {
+    private static final String PREFIX = "ORD";
+    private static final int NUM_PARTITIONS = 16;
+    private static final int BATCH_SIZE = 100;
+    private static final EncodedPrefix ENCODED_PREFIX = EncodedPrefix.of(PREFIX);
+
+    /**
+     * Per thread target for ids written as bytes
+     */
+    @State(Scope.Thread)
+    public static class Target {
+        private final byte[] bytes = new byte[64];
+    }
+
+    @Param({"RANDOM", "SEQUENTIAL"})
+    private AllocationMode mode;
+
+    private List<IdValidationConstraint> javaHashConstraints;
+    private List<IdValidationConstraint> murmurConstraints;
+
+    @Setup
+    public void setup() {
+        IdGenerator.initialize(23, mode);
+        javaHashConstraints = Collections.singletonList(
+                new PartitionValidator(4, new JavaHashCodeBasedKeyPartitioner(NUM_PARTITIONS)));
+        murmurConstraints = Collections.singletonList(
+                new PartitionValidator(4, new MurmurBasedKeyPartitioner(NUM_PARTITIONS)));
+    }
+
+    @Benchmark
+    public Id generate() {
+        return IdGenerator.generate(PREFIX);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<Id> generateBatch() {
+        return IdGenerator.generate(PREFIX, BATCH_SIZE);
+    }
+
+    @Benchmark
+    public byte[] generateUtf8() {
+        return IdGenerator.generate(PREFIX).getId().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public long generateIntoBytes(Target target) {
+        return IdGenerator.generate(ENCODED_PREFIX, target.bytes, 0);
+    }
+
+    @Benchmark
+    public long generateNumeric() {
+        return IdGenerator.generateNumeric();
+    }
+
+    @Benchmark
+    public Optional<Id> generateWithJavaHashPartition() {
+        return IdGenerator.generateWithConstraints(PREFIX, javaHashConstraints);
+    }
+
+    @Benchmark
+    public Optional<Id> generateWithMurmurPartition() {
+        return IdGenerator.generateWithConstraints(PREFIX, murmurConstraints);
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.benchmarks;
+
+import com.google.common.base.Strings;
+import io.appform.dropwizard.discovery.bundle.id.Id;
+import io.appform.dropwizard.discovery.bundle.id.IdGenerator;
+import io.appform.dropwizard.discovery.bundle.id.IdParser;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares {@link IdParser} with the regex + Joda path it replaced.
+ * Long prefixes made of digits are the worst case for the backtracking regex.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class IdParserBenchmark {
+    private static final DateTimeFormatter LEGACY_FORMATTER = DateTimeFormat.forPattern("yyMMddHHmmssSSS");
+    private static final Pattern LEGACY_PATTERN = Pattern.compile("(.*)([0-9]{15})([0-9]{4})([0-9]{3})");
+
+    @Param({"3", "64", "1024"})
+    private int prefixLength;
+
+    private final IdParser parser = new IdParser();
+    private String id;
+
+    @Setup
+    public void setup() {
+        IdGenerator.initialize(23);
+        id = IdGenerator.generate(Strings.repeat("1A", prefixLength / 2 + 1).substring(0, prefixLength)).getId();
+    }
+
+    @Benchmark
+    public Optional<Id> legacy() {
+        final Matcher matcher = LEGACY_PATTERN.matcher(id);
+        if (matcher.find()) {
+            return Optional.of(Id.builder()
+                                       .id(id)
+                                       .node(Integer.parseInt(matcher.group(3)))
+                                       .exponent(Integer.parseInt(matcher.group(4)))
+                                       .generatedDate(LEGACY_FORMATTER.parseDateTime(matcher.group(2)).toDate())
+                                       .build());
+        }
+        return Optional.empty();
+    }
+
+    @Benchmark
+    public Optional<Id> parser() {
+        return parser.parse(id);
+    }
+
+    @Benchmark
+    public Optional<Id> generatorParse() {
+        return IdGenerator.parse(id);
+    }
+}
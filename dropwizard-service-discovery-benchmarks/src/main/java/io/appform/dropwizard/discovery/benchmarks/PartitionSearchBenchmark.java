@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.benchmarks;
+
+import io.appform.dropwizard.discovery.bundle.id.Id;
+import io.appform.dropwizard.discovery.bundle.id.IdGenerator;
+import io.appform.dropwizard.discovery.bundle.id.constraints.IdValidationConstraint;
+import io.appform.dropwizard.discovery.bundle.id.constraints.impl.KeyPartitioner;
+import io.appform.dropwizard.discovery.bundle.id.constraints.impl.MurmurBasedKeyPartitioner;
+import io.appform.dropwizard.discovery.bundle.id.constraints.impl.PartitionValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generating an id for a partition by searching free exponents, against generating ids till one passes a partition
+ * constraint. The search needs random allocation, so unlike {@link IdGenerationBenchmark} this runs with the default
+ * allocation mode only.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PartitionSearchBenchmark {
+    private static final String PREFIX = "ORD";
+    private static final int NUM_PARTITIONS = 16;
+
+    private KeyPartitioner partitioner;
+    private List<IdValidationConstraint> constraints;
+
+    @Setup
+    public void setup() {
+        IdGenerator.initialize(23);
+        partitioner = new MurmurBasedKeyPartitioner(NUM_PARTITIONS);
+        constraints = Collections.singletonList(new PartitionValidator(4, partitioner));
+    }
+
+    @Benchmark
+    public Optional<Id> generateWithPartitionConstraint() {
+        return IdGenerator.generateWithConstraints(PREFIX, constraints);
+    }
+
+    @Benchmark
+    public Optional<Id> generateForPartition() {
+        return IdGenerator.generateForPartition(PREFIX, 4, partitioner);
+    }
+}
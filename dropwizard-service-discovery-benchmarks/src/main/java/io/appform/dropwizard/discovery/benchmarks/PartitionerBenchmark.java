@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.benchmarks;
+
+import io.appform.dropwizard.discovery.bundle.id.Id;
+import io.appform.dropwizard.discovery.bundle.id.IdGenerator;
+import io.appform.dropwizard.discovery.bundle.id.constraints.impl.JavaHashCodeBasedKeyPartitioner;
+import io.appform.dropwizard.discovery.bundle.id.constraints.impl.JumpConsistentHashKeyPartitioner;
+import io.appform.dropwizard.discovery.bundle.id.constraints.impl.KeyPartitioner;
+import io.appform.dropwizard.discovery.bundle.id.constraints.impl.Murmur32KeyPartitioner;
+import io.appform.dropwizard.discovery.bundle.id.constraints.impl.MurmurBasedKeyPartitioner;
+import io.appform.dropwizard.discovery.bundle.id.constraints.impl.PowerOfTwoKeyPartitioner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of mapping an id to a partition with each {@link KeyPartitioner}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PartitionerBenchmark {
+    private static final int NUM_IDS = 1024;
+    private static final int NUM_PARTITIONS = 1024;
+
+    private final KeyPartitioner javaHashCode = new JavaHashCodeBasedKeyPartitioner(NUM_PARTITIONS);
+    private final KeyPartitioner murmur = new MurmurBasedKeyPartitioner(NUM_PARTITIONS);
+    private final KeyPartitioner murmur32 = new Murmur32KeyPartitioner(NUM_PARTITIONS);
+    private final KeyPartitioner powerOfTwo = new PowerOfTwoKeyPartitioner(NUM_PARTITIONS);
+    private final KeyPartitioner jumpConsistentHash = new JumpConsistentHashKeyPartitioner(NUM_PARTITIONS);
+
+    private Id[] ids;
+    private int index;
+
+    @Setup
+    public void setup() {
+        IdGenerator.initialize(23);
+        ids = new Id[NUM_IDS];
+        IdGenerator.generate("ORD", ids);
+    }
+
+    @Benchmark
+    public int javaHashCode() {
+        return javaHashCode.partition(nextId());
+    }
+
+    @Benchmark
+    public int murmur() {
+        return murmur.partition(nextId());
+    }
+
+    @Benchmark
+    public int murmur32() {
+        return murmur32.partition(nextId());
+    }
+
+    @Benchmark
+    public int powerOfTwo() {
+        return powerOfTwo.partition(nextId());
+    }
+
+    @Benchmark
+    public int jumpConsistentHash() {
+        return jumpConsistentHash.partition(nextId());
+    }
+
+    private Id nextId() {
+        index = (index + 1) & (NUM_IDS - 1);
+        return ids[index];
+    }
+}
@@ -26,6 +26,7 @@ public class Constants {
     public static final int DEFAULT_PORT = -1;
     public static final int DEFAULT_DW_CHECK_INTERVAl = 15;
     public static final int DEFAULT_RETRY_CONN_INTERVAL = 5000;
+    public static final long DEFAULT_STARTUP_TIMEOUT_MS = 60_000;
 
     private Constants() {}
 }
@@ -27,11 +27,21 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.appform.dropwizard.discovery.bundle.healthchecks.InitialDelayChecker;
 import io.appform.dropwizard.discovery.bundle.healthchecks.InternalHealthChecker;
 import io.appform.dropwizard.discovery.bundle.healthchecks.RotationCheck;
+import io.appform.dropwizard.discovery.bundle.id.DropwizardIdGeneratorMetrics;
+import io.appform.dropwizard.discovery.bundle.id.EnvironmentNodeIdProvider;
 import io.appform.dropwizard.discovery.bundle.id.IdGenerator;
+import io.appform.dropwizard.discovery.bundle.id.IdGeneratorMetrics;
+import io.appform.dropwizard.discovery.bundle.id.IdLayout;
+import io.appform.dropwizard.discovery.bundle.id.IpNodeIdProvider;
+import io.appform.dropwizard.discovery.bundle.id.MonotonicTimeSource;
+import io.appform.dropwizard.discovery.bundle.id.NodeIdGenerator;
 import io.appform.dropwizard.discovery.bundle.id.NodeIdManager;
+import io.appform.dropwizard.discovery.bundle.id.NodeIdProvider;
+import io.appform.dropwizard.discovery.bundle.id.StaticNodeIdProvider;
 import io.appform.dropwizard.discovery.bundle.id.constraints.IdValidationConstraint;
 import io.appform.dropwizard.discovery.bundle.monitors.DropwizardHealthMonitor;
 import io.appform.dropwizard.discovery.bundle.monitors.DropwizardServerStartupCheck;
@@ -55,20 +65,34 @@ import org.apache.curator.retry.RetryForever;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.nio.file.Paths;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
 
 /**
  * A dropwizard bundle for service discovery.
  */
 @Slf4j
 public abstract class ServiceDiscoveryBundle<T extends Configuration> implements ConfiguredBundle<T> {
+    private static final int ABORT_WAIT_SECONDS = 5;
 
     private ServiceDiscoveryConfiguration serviceDiscoveryConfiguration;
     private List<Healthcheck> healthchecks = Lists.newArrayList();
     private ServiceProvider<ShardInfo> serviceProvider;
     private final List<IdValidationConstraint> globalIdConstraints;
+    private IdGeneratorMetrics idGeneratorMetrics = IdGeneratorMetrics.NOOP;
+    private MonotonicTimeSource idTimeSource;
+    private NodeIdProvider nodeIdProvider;
+    private StartupTimings startupTimings;
 
     @Getter
     private CuratorFramework curator;
@@ -76,6 +100,12 @@ public abstract class ServiceDiscoveryBundle<T extends Configuration> implements
     @Getter
     private ServiceDiscoveryClient serviceDiscoveryClient;
 
+    /**
+     * Generator for the node id fixed for this instance. Available once the service has started.
+     */
+    @Getter
+    private NodeIdGenerator idGenerator;
+
     @Getter
     @VisibleForTesting
     private RotationStatus rotationStatus;
@@ -109,25 +139,32 @@ public abstract class ServiceDiscoveryBundle<T extends Configuration> implements
         final int port = getPort(configuration);
         rotationStatus = new RotationStatus(serviceDiscoveryConfiguration.isInitialRotationStatus());
         serverStatus = new DropwizardServerStatus(false);
+        startupTimings = new StartupTimings(environment.metrics());
 
-        curator = CuratorFrameworkFactory.builder()
+        curator = startupTimings.time("curator-build", () -> CuratorFrameworkFactory.builder()
                 .connectString(serviceDiscoveryConfiguration.getZookeeper())
                 .namespace(namespace)
                 .retryPolicy(new RetryForever(serviceDiscoveryConfiguration.getConnectionRetryIntervalMillis()))
-                .build();
-        serviceProvider = buildServiceProvider(
+                .build());
+        serviceProvider = startupTimings.time("service-provider-build", () -> buildServiceProvider(
                 environment,
                 objectMapper,
                 namespace,
                 serviceName,
                 hostname,
                 port
-        );
-        serviceDiscoveryClient = buildDiscoveryClient(
+        ));
+        serviceDiscoveryClient = startupTimings.time("discovery-client-build", () -> buildDiscoveryClient(
                 environment,
                 namespace,
-                serviceName);
+                serviceName));
 
+        //Fail before anything is started if the id layout or a static node id can not be used
+        serviceDiscoveryConfiguration.getIdLayout().validate();
+        if (serviceDiscoveryConfiguration.isPublishIdGeneratorMetrics()) {
+            idGeneratorMetrics = new DropwizardIdGeneratorMetrics(environment.metrics());
+        }
+        nodeIdProvider = buildNodeIdProvider(serviceName);
         environment.lifecycle()
                 .manage(new ServiceDiscoveryManager(serviceName));
         environment.jersey()
@@ -136,6 +173,8 @@ public abstract class ServiceDiscoveryBundle<T extends Configuration> implements
                 .addTask(new OORTask(rotationStatus));
         environment.admin()
                 .addTask(new BIRTask(rotationStatus));
+        environment.admin()
+                .addTask(new StartupReportTask(startupTimings, objectMapper));
     }
 
     protected abstract ServiceDiscoveryConfiguration getRangerConfiguration(T configuration);
@@ -242,6 +281,33 @@ public abstract class ServiceDiscoveryBundle<T extends Configuration> implements
         return serviceProviderBuilder.buildServiceDiscovery();
     }
 
+    private NodeIdProvider buildNodeIdProvider(String serviceName) {
+        final IdLayout idLayout = serviceDiscoveryConfiguration.getIdLayout();
+        switch (serviceDiscoveryConfiguration.getIdNodeIdSource()) {
+            case STATIC:
+                return new StaticNodeIdProvider(serviceDiscoveryConfiguration.getIdStaticNodeId(), idLayout);
+            case ENVIRONMENT:
+                return new EnvironmentNodeIdProvider(serviceDiscoveryConfiguration.getIdNodeIdEnvironmentVariable(),
+                                                     idLayout);
+            case IP:
+                return new IpNodeIdProvider(idLayout,
+                                            serviceDiscoveryConfiguration.getIdNodeIdAddress(),
+                                            serviceDiscoveryConfiguration.isIdNodeIdAddressModulo());
+            case ZOOKEEPER:
+            default:
+                final String leaseFile = serviceDiscoveryConfiguration.getIdNodeLeaseFile();
+                return NodeIdManager.builder()
+                        .curatorFramework(curator)
+                        .processName(serviceName)
+                        .layout(idLayout)
+                        .metrics(idGeneratorMetrics)
+                        .leaseFile(Strings.isNullOrEmpty(leaseFile)
+                                   ? null
+                                   : Paths.get(leaseFile))
+                        .build();
+        }
+    }
+
     private class ServiceDiscoveryManager implements Managed {
         private final String serviceName;
 
@@ -249,13 +315,62 @@ public abstract class ServiceDiscoveryBundle<T extends Configuration> implements
             this.serviceName = serviceName;
         }
 
+        /**
+         * Registration, the first registry fetch and node id acquisition all wait on zookeeper, so they run side by
+         * side once curator is started. The id generator is built as soon as the node id and the clock are ready.
+         * Startup fails if all of it does not finish within the configured timeout. On failure, phases still running are
+         * interrupted and whatever was started is stopped again, so that nothing stays registered in zookeeper.
+         */
         @Override
         public void start() throws Exception {
-            curator.start();
-            serviceProvider.start();
-            serviceDiscoveryClient.start();
-            NodeIdManager nodeIdManager = new NodeIdManager(curator, serviceName);
-            IdGenerator.initialize(nodeIdManager.fixNodeId(), globalIdConstraints, Collections.emptyMap());
+            final long timeoutMillis = serviceDiscoveryConfiguration.getStartupTimeoutMillis();
+            final ExecutorService executorService = Executors.newCachedThreadPool(
+                    new ThreadFactoryBuilder()
+                            .setNameFormat("service-discovery-startup-%d")
+                            .setDaemon(true)
+                            .build());
+            final long start = System.nanoTime();
+            final Map<String, CompletableFuture<?>> phases = new LinkedHashMap<>();
+            boolean started = false;
+            try {
+                startupTimings.time("curator", () -> {
+                    curator.start();
+                    return null;
+                });
+                phases.put("zookeeper-connect", startupTimings.async("zookeeper-connect", () -> {
+                    curator.blockUntilConnected();
+                    return null;
+                }, executorService));
+                phases.put("service-provider", startupTimings.async("service-provider", () -> {
+                    serviceProvider.start();
+                    return null;
+                }, executorService));
+                phases.put("discovery-client", startupTimings.async("discovery-client", () -> {
+                    serviceDiscoveryClient.start();
+                    return null;
+                }, executorService));
+                final CompletableFuture<Integer> nodeId
+                        = startupTimings.async("node-id", nodeIdProvider::nodeId, executorService);
+                final CompletableFuture<MonotonicTimeSource> clock
+                        = startupTimings.async("clock", this::buildTimeSource, executorService);
+                final CompletableFuture<NodeIdGenerator> generator = nodeId.thenCombine(clock, this::buildIdGenerator);
+                phases.put("node-id", nodeId);
+                phases.put("clock", clock);
+                phases.put("id-generator", generator);
+                await(phases, timeoutMillis);
+                idGenerator = generator.join();
+                IdGenerator.initialize(idGenerator);
+                started = true;
+            }
+            finally {
+                //Interrupts phases still blocked on zookeeper after a failure
+                executorService.shutdownNow();
+                if (!started) {
+                    phases.values().forEach(phase -> phase.cancel(true));
+                    abort(executorService);
+                }
+                startupTimings.record("total", System.nanoTime() - start);
+            }
         }
 
         @Override
@@ -264,6 +379,101 @@ public abstract class ServiceDiscoveryBundle<T extends Configuration> implements
             serviceProvider.stop();
             curator.close();
             IdGenerator.cleanUp();
+            IdGenerator.useMetrics(IdGeneratorMetrics.NOOP);
+            if (null != idTimeSource) {
+                idTimeSource.close();
+            }
+        }
+
+        /**
+         * Closing curator ends the session, which drops the registration and any node id claimed for this instance
+         */
+        private void abort(ExecutorService executorService) {
+            stopQuietly("discovery client", serviceDiscoveryClient::stop);
+            stopQuietly("service provider", serviceProvider::stop);
+            stopQuietly("curator", curator::close);
+            try {
+                if (!executorService.awaitTermination(ABORT_WAIT_SECONDS, TimeUnit.SECONDS)) {
+                    log.warn("Startup phases did not stop within {} seconds", ABORT_WAIT_SECONDS);
+                }
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (null != idTimeSource) {
+                stopQuietly("id clock", idTimeSource::close);
+            }
+            IdGenerator.cleanUp();
+            IdGenerator.useMetrics(IdGeneratorMetrics.NOOP);
+        }
+
+        private void stopQuietly(String component, AutoCloseable closeable) {
+            try {
+                closeable.close();
+            }
+            catch (Exception e) {
+                log.warn("Could not stop " + component + " after failed startup", e);
+            }
+        }
+
+        private MonotonicTimeSource buildTimeSource() {
+            final String checkpointFile = serviceDiscoveryConfiguration.getIdClockCheckpointFile();
+            final int tickMillis = serviceDiscoveryConfiguration.getIdLayout().tickMillis();
+            //Borrowed ticks are ahead of the clock, the checkpoint has to cover them too
+            final int leadTicks = serviceDiscoveryConfiguration.getIdWaitMode()
+                    .leadTicks(serviceDiscoveryConfiguration.getIdMaxBorrowedTicks());
+            idTimeSource = MonotonicTimeSource.builder()
+                    .tickMillis(tickMillis)
+                    .leadMillis((long) leadTicks * tickMillis)
+                    .checkpointFile(Strings.isNullOrEmpty(checkpointFile)
+                                    ? null
+                                    : Paths.get(checkpointFile))
+                    .build();
+            return idTimeSource;
+        }
+
+        private NodeIdGenerator buildIdGenerator(int nodeId, MonotonicTimeSource timeSource) {
+            final long start = System.nanoTime();
+            //Domain constraints registered through IdGenerator before startup are carried over
+            final NodeIdGenerator generator = NodeIdGenerator.builder()
+                    .node(nodeId)
+                    .prefixScoped(serviceDiscoveryConfiguration.isScopeIdsByPrefix())
+                    .globalConstraints(globalIdConstraints)
+                    .domainSpecificConstraints(IdGenerator.getGenerator().getDomainSpecificConstraints())
+                    .metrics(idGeneratorMetrics)
+                    .layout(serviceDiscoveryConfiguration.getIdLayout())
+                    .waitStrategy(serviceDiscoveryConfiguration.getIdWaitMode()
+                                          .strategy(serviceDiscoveryConfiguration.getIdMaxBorrowedTicks()))
+                    .timeSource(timeSource)
+                    .build();
+            startupTimings.record("id-generator", System.nanoTime() - start);
+            return generator;
+        }
+
+        private void await(Map<String, CompletableFuture<?>> phases, long timeoutMillis) throws Exception {
+            try {
+                CompletableFuture.allOf(phases.values().toArray(new CompletableFuture<?>[0]))
+                        .get(timeoutMillis, TimeUnit.MILLISECONDS);
+            }
+            catch (TimeoutException e) {
+                final List<String> pending = phases.entrySet()
+                        .stream()
+                        .filter(phase -> !phase.getValue().isDone())
+                        .map(Map.Entry::getKey)
+                        .collect(Collectors.toList());
+                throw new IllegalStateException(String.format(
+                        "Service discovery did not start within %d ms, still waiting for %s. Check zookeeper at %s",
+                        timeoutMillis, pending, serviceDiscoveryConfiguration.getZookeeper()));
+            }
+            catch (ExecutionException e) {
+                final String failed = phases.entrySet()
+                        .stream()
+                        .filter(phase -> phase.getValue().isCompletedExceptionally())
+                        .map(Map.Entry::getKey)
+                        .findFirst()
+                        .orElse("unknown");
+                throw new IllegalStateException("Service discovery startup failed in phase " + failed, e.getCause());
+            }
         }
     }
 }
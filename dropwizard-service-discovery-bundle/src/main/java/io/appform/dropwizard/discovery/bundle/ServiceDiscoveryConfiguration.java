@@ -18,9 +18,13 @@
 package io.appform.dropwizard.discovery.bundle;
 
 import com.google.common.base.Strings;
+import io.appform.dropwizard.discovery.bundle.id.IdLayout;
+import io.appform.dropwizard.discovery.bundle.id.NodeIdSource;
+import io.appform.dropwizard.discovery.bundle.id.WaitMode;
 import lombok.*;
 import org.hibernate.validator.constraints.NotEmpty;
 
+import javax.validation.Valid;
 import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
@@ -73,6 +77,84 @@ public class ServiceDiscoveryConfiguration {
 
     private int dropwizardCheckStaleness;
 
+    /**
+     * Time the bundle gets to connect, register, fetch the registry and fix the node id before startup fails
+     */
+    @Min(1000)
+    private long startupTimeoutMillis = Constants.DEFAULT_STARTUP_TIMEOUT_MS;
+
+    /**
+     * Publish id generation rates, allocation probes, waits and constraint attempts to the metric registry
+     */
+    private boolean publishIdGeneratorMetrics;
+
+    /**
+     * Give every id prefix its own per millisecond id budget instead of sharing one across the node
+     */
+    private boolean scopeIdsByPrefix;
+
+    /**
+     * Node digits, exponent digits and timestamp precision of generated ids. Defaults to the original layout.
+     */
+    @NotNull
+    @Valid
+    private IdLayout idLayout = new IdLayout();
+
+    /**
+     * What id generation does when a node runs out of ids for the current timestamp tick
+     */
+    @NotNull
+    private WaitMode idWaitMode = WaitMode.SPIN_THEN_YIELD;
+
+    /**
+     * How many ticks ahead of the clock id generation can move in {@link WaitMode#BORROW} mode. Zero picks the default.
+     */
+    @Min(0)
+    @Max(io.appform.dropwizard.discovery.bundle.id.Constants.MAX_CLOCK_LAG_MS)
+    private int idMaxBorrowedTicks;
+
+    /**
+     * File to keep the last issued id timestamp in, so that ids generated after a restart are timestamped above it.
+     * Kept in memory only if not set.
+     */
+    private String idClockCheckpointFile;
+
+    /**
+     * Where the node id for id generation comes from. Only {@link NodeIdSource#ZOOKEEPER} waits for zookeeper.
+     */
+    @NotNull
+    private NodeIdSource idNodeIdSource = NodeIdSource.ZOOKEEPER;
+
+    /**
+     * Node id for {@link NodeIdSource#STATIC}
+     */
+    @Min(0)
+    private int idStaticNodeId;
+
+    /**
+     * Environment variable to read the node id from for {@link NodeIdSource#ENVIRONMENT}. Defaults to HOSTNAME, which
+     * ends in the ordinal for pods of a StatefulSet.
+     */
+    private String idNodeIdEnvironmentVariable;
+
+    /**
+     * Address, as address/prefix length, to derive the node id from for {@link NodeIdSource#IP}. Picked from the
+     * network interfaces of the host if not set.
+     */
+    private String idNodeIdAddress;
+
+    /**
+     * Take the address modulo the number of node ids for {@link NodeIdSource#IP} if its subnet is not known or is a
+     * single host. Node ids are then unique only for hosts within an aligned block of that many addresses.
+     */
+    private boolean idNodeIdAddressModulo;
+
+    /**
+     * File to keep the node id claimed in zookeeper in, so that a restart claims the same id again if it is free.
+     * Not kept if not set.
+     */
+    private String idNodeLeaseFile;
+
     @Builder
     public ServiceDiscoveryConfiguration(
             String namespace,
@@ -86,7 +168,20 @@ public class ServiceDiscoveryConfiguration {
             long initialDelaySeconds,
             boolean initialRotationStatus,
             int dropwizardCheckInterval,
-            int dropwizardCheckStaleness) {
+            int dropwizardCheckStaleness,
+            boolean publishIdGeneratorMetrics,
+            boolean scopeIdsByPrefix,
+            IdLayout idLayout,
+            WaitMode idWaitMode,
+            int idMaxBorrowedTicks,
+            String idClockCheckpointFile,
+            NodeIdSource idNodeIdSource,
+            int idStaticNodeId,
+            String idNodeIdEnvironmentVariable,
+            String idNodeIdAddress,
+            boolean idNodeIdAddressModulo,
+            String idNodeLeaseFile,
+            long startupTimeoutMillis) {
         this.namespace = Strings.isNullOrEmpty(namespace)
                          ? Constants.DEFAULT_NAMESPACE
                          : namespace;
@@ -109,5 +204,26 @@ public class ServiceDiscoveryConfiguration {
                                        ? Constants.DEFAULT_DW_CHECK_INTERVAl
                                        : dropwizardCheckInterval;
         this.dropwizardCheckStaleness = dropwizardCheckStaleness;
+        this.publishIdGeneratorMetrics = publishIdGeneratorMetrics;
+        this.scopeIdsByPrefix = scopeIdsByPrefix;
+        this.idLayout = null != idLayout
+                        ? idLayout
+                        : new IdLayout();
+        this.idWaitMode = null != idWaitMode
+                          ? idWaitMode
+                          : WaitMode.SPIN_THEN_YIELD;
+        this.idMaxBorrowedTicks = idMaxBorrowedTicks;
+        this.idClockCheckpointFile = idClockCheckpointFile;
+        this.idNodeIdSource = null != idNodeIdSource
+                              ? idNodeIdSource
+                              : NodeIdSource.ZOOKEEPER;
+        this.idStaticNodeId = idStaticNodeId;
+        this.idNodeIdEnvironmentVariable = idNodeIdEnvironmentVariable;
+        this.idNodeIdAddress = idNodeIdAddress;
+        this.idNodeIdAddressModulo = idNodeIdAddressModulo;
+        this.idNodeLeaseFile = idNodeLeaseFile;
+        this.startupTimeoutMillis = startupTimeoutMillis == 0
+                                    ? Constants.DEFAULT_STARTUP_TIMEOUT_MS
+                                    : startupTimeoutMillis;
     }
 }
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.dropwizard.servlets.tasks.Task;
+
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Admin task that prints how long each startup phase took, in milliseconds, as a json object
+ */
+public class StartupReportTask extends Task {
+    private final StartupTimings startupTimings;
+    private final ObjectMapper objectMapper;
+
+    public StartupReportTask(StartupTimings startupTimings, ObjectMapper objectMapper) {
+        super("ranger-startup-report");
+        this.startupTimings = startupTimings;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void execute(Map<String, List<String>> map, PrintWriter printWriter) throws Exception {
+        printWriter.println(objectMapper.writerWithDefaultPrettyPrinter()
+                                    .writeValueAsString(startupTimings.phaseMillis()));
+        printWriter.flush();
+    }
+}
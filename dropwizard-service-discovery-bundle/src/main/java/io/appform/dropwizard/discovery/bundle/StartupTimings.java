@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle;
+
+import com.codahale.metrics.MetricRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times the phases of bundle startup. Phases are logged as they finish and published as timers named
+ * ServiceDiscoveryBundle.startup.[phase] when a metric registry is passed.
+ */
+@Slf4j
+public class StartupTimings {
+
+    /**
+     * Work done in a startup phase
+     */
+    @FunctionalInterface
+    public interface Phase<T> {
+        T run() throws Exception;
+    }
+
+    private final MetricRegistry registry;
+    private final Map<String, Long> phaseNanos = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    public StartupTimings(MetricRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Run a phase on the calling thread
+     */
+    public <T> T time(String phase, Phase<T> work) throws Exception {
+        final long start = System.nanoTime();
+        try {
+            return work.run();
+        }
+        finally {
+            record(phase, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Run a phase on the executor
+     */
+    public <T> CompletableFuture<T> async(String phase, Phase<T> work, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return time(phase, work);
+            }
+            catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    public void record(String phase, long nanos) {
+        phaseNanos.put(phase, nanos);
+        log.info("Startup phase {} took {} ms", phase, TimeUnit.NANOSECONDS.toMillis(nanos));
+        if (null != registry) {
+            registry.timer(MetricRegistry.name(ServiceDiscoveryBundle.class, "startup", phase))
+                    .update(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * @return Duration of finished phases in milliseconds, in the order they finished
+     */
+    public Map<String, Long> phaseMillis() {
+        final Map<String, Long> millis = new LinkedHashMap<>();
+        synchronized (phaseNanos) {
+            phaseNanos.forEach((phase, nanos) -> millis.put(phase, TimeUnit.NANOSECONDS.toMillis(nanos)));
+        }
+        return millis;
+    }
+}
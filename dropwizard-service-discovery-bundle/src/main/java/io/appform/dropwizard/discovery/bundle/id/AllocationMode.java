@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+/**
+ * How exponents are picked within a millisecond
+ */
+public enum AllocationMode {
+    /**
+     * Random exponents. See {@link StripedExponentAllocator}
+     */
+    RANDOM {
+        @Override
+        public ExponentAllocator allocator(
+                int maxExponents, int tickMillis, WaitStrategy waitStrategy, TimeSource timeSource) {
+            return new StripedExponentAllocator(maxExponents, tickMillis, waitStrategy, timeSource);
+        }
+
+        @Override
+        public long allocatorSizeInBytes(int maxExponents) {
+            return StripedExponentAllocator.sizeInBytes(maxExponents);
+        }
+    },
+    /**
+     * Exponents from a strided per millisecond counter. Constant cost per id even when a millisecond is close to
+     * being exhausted. See {@link SequentialExponentAllocator}
+     */
+    SEQUENTIAL {
+        @Override
+        public ExponentAllocator allocator(
+                int maxExponents, int tickMillis, WaitStrategy waitStrategy, TimeSource timeSource) {
+            return new SequentialExponentAllocator(maxExponents, tickMillis, waitStrategy, timeSource);
+        }
+
+        @Override
+        public long allocatorSizeInBytes(int maxExponents) {
+            return Long.BYTES;
+        }
+    };
+
+    public ExponentAllocator allocator(int maxExponents) {
+        return allocator(maxExponents, 1);
+    }
+
+    public ExponentAllocator allocator(int maxExponents, int tickMillis) {
+        return allocator(maxExponents, tickMillis, new SpinThenYieldWaitStrategy());
+    }
+
+    public ExponentAllocator allocator(int maxExponents, int tickMillis, WaitStrategy waitStrategy) {
+        return allocator(maxExponents, tickMillis, waitStrategy, TimeSource.SYSTEM);
+    }
+
+    /**
+     * Rough memory taken by the state of an allocator, used to bound the number of prefix scoped allocators
+     *
+     * @param maxExponents Number of exponents per tick
+     * @return Size in bytes
+     */
+    public abstract long allocatorSizeInBytes(int maxExponents);
+
+    /**
+     * @param maxExponents Number of exponents per tick
+     * @param tickMillis   Length of a tick. Times of reserved slots are in ticks.
+     * @param waitStrategy What to do when a tick runs out of exponents
+     * @param timeSource   Clock to read ticks from
+     */
+    public abstract ExponentAllocator allocator(
+            int maxExponents, int tickMillis, WaitStrategy waitStrategy, TimeSource timeSource);
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import com.google.common.base.Preconditions;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Moves on to the next tick without waiting for the clock, as long as that keeps the allocator no more than
+ * maxBorrowedTicks ahead of the clock. Ids then carry a timestamp slightly in the future, but the timestamps handed
+ * out by an allocator never go back, as allocators keep using a tick that is ahead of the clock. Once the bound is
+ * reached, the fallback waits for the clock to catch up.
+ */
+public class BorrowingWaitStrategy implements WaitStrategy {
+    public static final int DEFAULT_MAX_BORROWED_TICKS = 1;
+
+    private final int maxBorrowedTicks;
+    private final WaitStrategy fallback;
+
+    public BorrowingWaitStrategy() {
+        this(DEFAULT_MAX_BORROWED_TICKS, new SpinThenYieldWaitStrategy());
+    }
+
+    /**
+     * @param maxBorrowedTicks How far ahead of the clock allocation can move
+     * @param fallback         Used to wait for the clock once the bound is reached
+     */
+    public BorrowingWaitStrategy(int maxBorrowedTicks, WaitStrategy fallback) {
+        //Allocators treat a tick further ahead than the clock lag as a clock that was stepped back
+        Preconditions.checkArgument(maxBorrowedTicks > 0 && maxBorrowedTicks <= Constants.MAX_CLOCK_LAG_MS,
+                                    "Borrowed ticks must be between 1 and %s", Constants.MAX_CLOCK_LAG_MS);
+        Preconditions.checkArgument(null != fallback, "Provide a non null fallback strategy");
+        this.maxBorrowedTicks = maxBorrowedTicks;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public long await(long exhausted, LongSupplier clock) {
+        final long next = exhausted + 1;
+        final long lead = next - clock.getAsLong();
+        if (lead > maxBorrowedTicks) {
+            //Waiting out the tick that brings the lead back within bounds
+            fallback.await(next - maxBorrowedTicks - 1, clock);
+        }
+        return next;
+    }
+}
@@ -0,0 +1,363 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import lombok.Builder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Parses large numbers of ids without creating objects per id.
+ * Results are written to primitive arrays or handed to a {@link Visitor}. Lists and buffers are split across the
+ * threads of a fork join pool, so visitors for them need to be thread safe. Buffers and streams hold newline
+ * delimited ids in a single byte encoding such as ASCII. Ids that can not be parsed are reported with a time of
+ * {@link IdParser#INVALID_TIME} and a node and exponent of -1.
+ */
+public class BulkIdParser {
+    public static final int DEFAULT_SPLIT_THRESHOLD = 8192;
+    private static final int READ_CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * Receives parsed ids
+     */
+    @FunctionalInterface
+    public interface Visitor {
+        /**
+         * @param index       Position of the id in the input
+         * @param epochMillis Generation time or {@link IdParser#INVALID_TIME}
+         * @param node        Node or -1
+         * @param exponent    Exponent or -1
+         */
+        void visit(long index, long epochMillis, int node, int exponent);
+    }
+
+    /**
+     * Source of the ids to parse, by position
+     */
+    private interface Records {
+        int size();
+
+        /**
+         * @param reusable Sequence owned by the calling task, can be repointed instead of creating a new one
+         */
+        CharSequence get(int index, ByteSequence reusable);
+    }
+
+    private final IdParser parser;
+    private final ForkJoinPool pool;
+    private final int splitThreshold;
+
+    public BulkIdParser() {
+        this(null, null, 0);
+    }
+
+    /**
+     * @param layout         Layout of the ids. Defaults to the original layout.
+     * @param pool           Pool to split large inputs across. Defaults to the common pool.
+     * @param splitThreshold Inputs with more ids than this are split. Defaults to {@value #DEFAULT_SPLIT_THRESHOLD}.
+     */
+    @Builder
+    public BulkIdParser(IdLayout layout, ForkJoinPool pool, int splitThreshold) {
+        Preconditions.checkArgument(splitThreshold >= 0, "Split threshold can not be negative");
+        this.parser = new IdParser(null != layout
+                                   ? layout
+                                   : new IdLayout());
+        this.pool = null != pool
+                    ? pool
+                    : ForkJoinPool.commonPool();
+        this.splitThreshold = splitThreshold == 0
+                              ? DEFAULT_SPLIT_THRESHOLD
+                              : splitThreshold;
+    }
+
+    public void parse(List<? extends CharSequence> ids, Visitor visitor) {
+        parse(listRecords(ids), visitor);
+    }
+
+    /**
+     * Write the parts of every id to the arrays at the position of the id
+     *
+     * @return Number of ids that could be parsed
+     */
+    public int parse(List<? extends CharSequence> ids, long[] epochMillis, int[] nodes, int[] exponents) {
+        return parse(listRecords(ids), epochMillis, nodes, exponents);
+    }
+
+    /**
+     * Parse the newline delimited ids between the position and the limit of the buffer. The position of the buffer
+     * is not changed.
+     */
+    public void parse(ByteBuffer buffer, Visitor visitor) {
+        parse(bufferRecords(buffer), visitor);
+    }
+
+    /**
+     * Parse the newline delimited ids between the position and the limit of the buffer into the arrays. Use
+     * {@link #countLines(ByteBuffer)} to size them. The position of the buffer is not changed.
+     *
+     * @return Number of ids that could be parsed
+     */
+    public int parse(ByteBuffer buffer, long[] epochMillis, int[] nodes, int[] exponents) {
+        return parse(bufferRecords(buffer), epochMillis, nodes, exponents);
+    }
+
+    /**
+     * Parse newline delimited ids till the end of the stream. Ids are parsed and visited on the calling thread, in
+     * the order they appear in.
+     *
+     * @return Number of ids read
+     */
+    public long parse(InputStream in, Visitor visitor) throws IOException {
+        byte[] chunk = new byte[READ_CHUNK_SIZE];
+        final ByteSequence sequence = new ByteSequence();
+        int filled = 0;
+        long index = 0;
+        while (true) {
+            final int read = in.read(chunk, filled, chunk.length - filled);
+            if (read < 0) {
+                break;
+            }
+            filled += read;
+            final ByteBuffer buffer = ByteBuffer.wrap(chunk, 0, filled);
+            int lineStart = 0;
+            for (int i = 0; i < filled; i++) {
+                if (chunk[i] == '\n') {
+                    visit(index++, sequence.of(buffer, lineStart, i), visitor);
+                    lineStart = i + 1;
+                }
+            }
+            //Partial line is carried over to the next read
+            filled -= lineStart;
+            System.arraycopy(chunk, lineStart, chunk, 0, filled);
+            if (filled == chunk.length) {
+                chunk = Arrays.copyOf(chunk, chunk.length * 2);
+            }
+        }
+        if (filled > 0) {
+            visit(index++, sequence.of(ByteBuffer.wrap(chunk, 0, filled), 0, filled), visitor);
+        }
+        return index;
+    }
+
+    /**
+     * Number of ids in a newline delimited buffer. A last line without a newline counts as well.
+     */
+    public static int countLines(ByteBuffer buffer) {
+        int lines = 0;
+        for (int i = buffer.position(); i < buffer.limit(); i++) {
+            if (buffer.get(i) == '\n') {
+                lines++;
+            }
+        }
+        return buffer.limit() > buffer.position() && buffer.get(buffer.limit() - 1) != '\n'
+               ? lines + 1
+               : lines;
+    }
+
+    private void parse(Records records, Visitor visitor) {
+        Preconditions.checkArgument(null != visitor, "Provide a non null visitor");
+        run(records, (index, id) -> visit(index, id, visitor));
+    }
+
+    private int parse(Records records, long[] epochMillis, int[] nodes, int[] exponents) {
+        final int size = records.size();
+        Preconditions.checkArgument(epochMillis.length >= size && nodes.length >= size && exponents.length >= size,
+                                    "Arrays need room for %s ids", size);
+        final Visitor arrays = (index, time, node, exponent) -> {
+            epochMillis[(int) index] = time;
+            nodes[(int) index] = node;
+            exponents[(int) index] = exponent;
+        };
+        run(records, (index, id) -> visit(index, id, arrays));
+        int parsed = 0;
+        for (int i = 0; i < size; i++) {
+            if (epochMillis[i] != IdParser.INVALID_TIME) {
+                parsed++;
+            }
+        }
+        return parsed;
+    }
+
+    private void visit(long index, CharSequence id, Visitor visitor) {
+        final int suffixStart = null != id
+                                ? parser.suffixStart(id)
+                                : -1;
+        final long time = suffixStart < 0
+                          ? IdParser.INVALID_TIME
+                          : parser.epochMillis(id, suffixStart);
+        if (time == IdParser.INVALID_TIME) {
+            visitor.visit(index, IdParser.INVALID_TIME, -1, -1);
+            return;
+        }
+        visitor.visit(index, time, parser.node(id, suffixStart), parser.exponent(id, suffixStart));
+    }
+
+    @FunctionalInterface
+    private interface RecordHandler {
+        void handle(long index, CharSequence id);
+    }
+
+    private void run(Records records, RecordHandler handler) {
+        final int size = records.size();
+        if (size <= splitThreshold) {
+            new ParseTask(records, handler, 0, size).compute();
+            return;
+        }
+        pool.invoke(new ParseTask(records, handler, 0, size));
+    }
+
+    private final class ParseTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Records records;
+        private final transient RecordHandler handler;
+        private final int from;
+        private final int to;
+
+        private ParseTask(Records records, RecordHandler handler, int from, int to) {
+            this.records = records;
+            this.handler = handler;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > splitThreshold) {
+                final int middle = (from + to) >>> 1;
+                invokeAll(new ParseTask(records, handler, from, middle),
+                          new ParseTask(records, handler, middle, to));
+                return;
+            }
+            final ByteSequence reusable = new ByteSequence();
+            for (int i = from; i < to; i++) {
+                handler.handle(i, records.get(i, reusable));
+            }
+        }
+    }
+
+    private static Records listRecords(List<? extends CharSequence> ids) {
+        Preconditions.checkArgument(null != ids, "Provide a non null list of ids");
+        return new Records() {
+            @Override
+            public int size() {
+                return ids.size();
+            }
+
+            @Override
+            public CharSequence get(int index, ByteSequence reusable) {
+                return ids.get(index);
+            }
+        };
+    }
+
+    /**
+     * Lines of the buffer as they are handed to the parser, without line terminators
+     */
+    @VisibleForTesting
+    static List<String> lines(ByteBuffer buffer) {
+        final Records records = bufferRecords(buffer);
+        final List<String> lines = new ArrayList<>(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            lines.add(records.get(i, new ByteSequence()).toString());
+        }
+        return lines;
+    }
+
+    /**
+     * Line starts are found in one pass up front, so that lines can be handed out by position
+     */
+    private static Records bufferRecords(ByteBuffer buffer) {
+        Preconditions.checkArgument(null != buffer, "Provide a non null buffer");
+        final int lines = countLines(buffer);
+        final int[] lineStarts = new int[lines + 1];
+        int line = 0;
+        lineStarts[0] = buffer.position();
+        for (int i = buffer.position(); i < buffer.limit() && line < lines; i++) {
+            if (buffer.get(i) == '\n') {
+                lineStarts[++line] = i + 1;
+            }
+        }
+        //A last line without a newline ends at the limit, as if a newline followed it
+        if (line < lines) {
+            lineStarts[lines] = buffer.limit() + 1;
+        }
+        return new Records() {
+            @Override
+            public int size() {
+                return lines;
+            }
+
+            @Override
+            public CharSequence get(int index, ByteSequence reusable) {
+                return reusable.of(buffer, lineStarts[index], lineStarts[index + 1] - 1);
+            }
+        };
+    }
+
+    /**
+     * Window over single byte characters of a buffer, without the trailing carriage return of a line
+     */
+    private static final class ByteSequence implements CharSequence {
+        private ByteBuffer buffer;
+        private int start;
+        private int length;
+
+        private ByteSequence of(ByteBuffer buffer, int start, int end) {
+            this.buffer = buffer;
+            this.start = start;
+            this.length = end > start && buffer.get(end - 1) == '\r'
+                          ? end - start - 1
+                          : end - start;
+            return this;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (buffer.get(start + index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return new ByteSequence().of(buffer, start + from, start + to);
+        }
+
+        @Override
+        public String toString() {
+            final char[] chars = new char[length];
+            for (int i = 0; i < length; i++) {
+                chars[i] = charAt(i);
+            }
+            return new String(chars);
+        }
+    }
+}
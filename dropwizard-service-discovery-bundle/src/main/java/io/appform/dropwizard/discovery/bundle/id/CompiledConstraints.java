@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import io.appform.dropwizard.discovery.bundle.id.constraints.IdValidationConstraint;
+
+import java.util.List;
+
+/**
+ * Constraints flattened into an array, so that checking an id is a plain loop that allocates nothing
+ */
+final class CompiledConstraints {
+    static final CompiledConstraints EMPTY = new CompiledConstraints(new IdValidationConstraint[0]);
+
+    private final IdValidationConstraint[] constraints;
+
+    private CompiledConstraints(IdValidationConstraint[] constraints) {
+        this.constraints = constraints;
+    }
+
+    /**
+     * Constraints are evaluated in the order of the passed lists
+     */
+    @SafeVarargs
+    static CompiledConstraints of(List<IdValidationConstraint>... constraintLists) {
+        int size = 0;
+        for (List<IdValidationConstraint> constraintList : constraintLists) {
+            size += constraintList.size();
+        }
+        if (size == 0) {
+            return EMPTY;
+        }
+        final IdValidationConstraint[] constraints = new IdValidationConstraint[size];
+        int position = 0;
+        for (List<IdValidationConstraint> constraintList : constraintLists) {
+            for (IdValidationConstraint constraint : constraintList) {
+                constraints[position++] = constraint;
+            }
+        }
+        return new CompiledConstraints(constraints);
+    }
+
+    /**
+     * @return First constraint the id does not satisfy, null if it satisfies all of them
+     */
+    IdValidationConstraint firstFailure(Id id) {
+        for (IdValidationConstraint constraint : constraints) {
+            if (!constraint.isValid(id)) {
+                return constraint;
+            }
+        }
+        return null;
+    }
+}
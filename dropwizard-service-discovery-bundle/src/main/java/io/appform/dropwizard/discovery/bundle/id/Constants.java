@@ -6,6 +6,11 @@ package io.appform.dropwizard.discovery.bundle.id;
 public class Constants {
     public static final int MAX_ID_PER_MS = 1000;
     public static final int MAX_NUM_NODES = 10000;
+    //A thread that read the clock just before it ticked can find an allocator already moved to the next
+    //tick. Allocators use such a tick as is. Anything further ahead means that the clock has been stepped back.
+    //Counted in timestamp ticks of the id layout, which are milliseconds only for the default layout. Also bounds
+    //how far ahead borrowing can move.
+    public static final int MAX_CLOCK_LAG_MS = 10;
 
     private Constants() {}
 }
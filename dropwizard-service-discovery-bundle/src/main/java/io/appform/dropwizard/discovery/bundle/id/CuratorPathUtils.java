@@ -17,17 +17,58 @@
 
 package io.appform.dropwizard.discovery.bundle.id;
 
+import com.google.common.base.Preconditions;
+
 /**
  * Utilities for curator
+ * Node paths do not depend on the id layout, so processes with different layouts still claim node ids from the same
+ * set of paths.
  */
 public class CuratorPathUtils {
     private final String processName;
+    private final int maxNodes;
 
     public CuratorPathUtils(String processName) {
+        this(processName, new IdLayout());
+    }
+
+    public CuratorPathUtils(String processName, IdLayout layout) {
+        layout.validate();
         this.processName = processName;
+        this.maxNodes = layout.maxNodes();
     }
 
     public String path(int nodeId) {
-        return String.format("/%s/%s/%03d", "id-generator", processName, nodeId);
+        Preconditions.checkArgument(nodeId >= 0 && nodeId < maxNodes, "Invalid node %s", nodeId);
+        return String.format("%s/%03d", parentPath(), nodeId);
+    }
+
+    /**
+     * Path under which the node ids of the process are claimed
+     */
+    public String parentPath() {
+        return String.format("/%s/%s", "id-generator", processName);
+    }
+
+    /**
+     * Node id claimed by a child of {@link #parentPath()}
+     *
+     * @return Node id or -1 if the child is not a node id that fits the layout
+     */
+    public int nodeId(String childName) {
+        if (childName.isEmpty() || childName.length() > 9) {
+            return -1;
+        }
+        int nodeId = 0;
+        for (int i = 0; i < childName.length(); i++) {
+            final char c = childName.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            nodeId = nodeId * 10 + (c - '0');
+        }
+        return nodeId < maxNodes
+               ? nodeId
+               : -1;
     }
 }
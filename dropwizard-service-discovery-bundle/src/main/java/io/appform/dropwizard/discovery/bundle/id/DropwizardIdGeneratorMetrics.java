@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes id generation metrics to a dropwizard metric registry.
+ * Histograms and timers use the default exponentially decaying reservoir, which keeps a fixed number of samples no
+ * matter how many ids are generated.
+ */
+public class DropwizardIdGeneratorMetrics implements IdGeneratorMetrics {
+    private final MetricRegistry registry;
+    private final Meter generated;
+    private final Histogram allocationProbes;
+    private final Timer waits;
+    private final Counter saturated;
+    private final Histogram clockStepBacks;
+    private final Counter retriesExhausted;
+    private final Timer nodeIdAcquisition;
+    private final Counter nodeIdCollisions;
+    private final Map<String, Histogram> constraintAttempts = new ConcurrentHashMap<>();
+
+    public DropwizardIdGeneratorMetrics(MetricRegistry registry) {
+        this.registry = registry;
+        this.generated = registry.meter(name("generated"));
+        this.allocationProbes = registry.histogram(name("allocation", "probes"));
+        this.waits = registry.timer(name("allocation", "wait"));
+        this.saturated = registry.counter(name("allocation", "saturated"));
+        this.clockStepBacks = registry.histogram(name("clock", "stepback"));
+        this.retriesExhausted = registry.counter(name("constraints", "exhausted"));
+        this.nodeIdAcquisition = registry.timer(name("node", "acquisition"));
+        this.nodeIdCollisions = registry.counter(name("node", "collisions"));
+    }
+
+    @Override
+    public void generated(int count) {
+        generated.mark(count);
+    }
+
+    @Override
+    public void allocationProbes(int probes) {
+        allocationProbes.update(probes);
+    }
+
+    @Override
+    public void waited(long nanos) {
+        waits.update(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void saturated() {
+        saturated.inc();
+    }
+
+    @Override
+    public void clockSteppedBack(long millis) {
+        clockStepBacks.update(millis);
+    }
+
+    @Override
+    public void nodeIdAcquired(long nanos, int collisions) {
+        nodeIdAcquisition.update(nanos, TimeUnit.NANOSECONDS);
+        nodeIdCollisions.inc(collisions);
+    }
+
+    @Override
+    public void constraintAttempts(String domain, int attempts) {
+        constraintAttempts.computeIfAbsent(
+                domain,
+                key -> registry.histogram(name("constraints", key, "attempts")))
+                .update(attempts);
+    }
+
+    @Override
+    public void retriesExhausted(String domain) {
+        retriesExhausted.inc();
+    }
+
+    private static String name(String... names) {
+        return MetricRegistry.name(IdGenerator.class, names);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import com.google.common.base.Preconditions;
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Id prefix encoded once, to be reused for every id written to a byte array, buffer or builder.
+ * Keep one per prefix, for example in a static field, instead of encoding the prefix for every id.
+ * Bytes are UTF-8. Id suffixes are ASCII digits, so a whole id written as bytes is valid UTF-8.
+ */
+public final class EncodedPrefix {
+    @Getter
+    private final String prefix;
+    private final char[] chars;
+    private final byte[] bytes;
+
+    private EncodedPrefix(String prefix) {
+        this.prefix = prefix;
+        this.chars = prefix.toCharArray();
+        this.bytes = prefix.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static EncodedPrefix of(String prefix) {
+        Preconditions.checkArgument(null != prefix, "Provide a non null prefix");
+        return new EncodedPrefix(prefix);
+    }
+
+    /**
+     * Number of bytes the prefix takes
+     */
+    public int byteLength() {
+        return bytes.length;
+    }
+
+    int write(byte[] target, int offset) {
+        System.arraycopy(bytes, 0, target, offset, bytes.length);
+        return offset + bytes.length;
+    }
+
+    int write(ByteBuffer target, int offset) {
+        if (target.hasArray()) {
+            return write(target.array(), target.arrayOffset() + offset) - target.arrayOffset();
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            target.put(offset + i, bytes[i]);
+        }
+        return offset + bytes.length;
+    }
+
+    StringBuilder append(StringBuilder target) {
+        return target.append(chars);
+    }
+
+    @Override
+    public String toString() {
+        return prefix;
+    }
+}
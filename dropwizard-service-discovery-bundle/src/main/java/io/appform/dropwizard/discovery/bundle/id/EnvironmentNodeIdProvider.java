@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Strings;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * Reads the node id from the trailing digits of an environment variable.
+ * The variable can hold a plain number, or a name ending in one such as the hostname of a StatefulSet pod
+ * (my-service-12). The number is used as is, so it has to be unique and fit the node digits of the layout.
+ */
+@Slf4j
+public class EnvironmentNodeIdProvider implements NodeIdProvider {
+    public static final String DEFAULT_VARIABLE = "HOSTNAME";
+
+    private final String variable;
+    private final int maxNodes;
+    private final UnaryOperator<String> environment;
+
+    public EnvironmentNodeIdProvider(String variable, IdLayout layout) {
+        this(variable, layout, System::getenv);
+    }
+
+    EnvironmentNodeIdProvider(String variable, IdLayout layout, UnaryOperator<String> environment) {
+        layout.validate();
+        this.variable = Strings.isNullOrEmpty(variable)
+                        ? DEFAULT_VARIABLE
+                        : variable;
+        this.maxNodes = layout.maxNodes();
+        this.environment = environment;
+    }
+
+    @Override
+    public int nodeId() {
+        final String value = environment.apply(variable);
+        Preconditions.checkState(!Strings.isNullOrEmpty(value), "Environment variable %s is not set", variable);
+        int digitsStart = value.length();
+        while (digitsStart > 0 && isDigit(value.charAt(digitsStart - 1))) {
+            digitsStart--;
+        }
+        Preconditions.checkState(digitsStart < value.length(),
+                                 "Value %s of environment variable %s does not end in a number", value, variable);
+        final String digits = value.substring(digitsStart);
+        final long nodeId = digits.length() <= 9
+                            ? Long.parseLong(digits)
+                            : Long.MAX_VALUE;
+        Preconditions.checkState(nodeId < maxNodes,
+                                 "Node %s from environment variable %s is above the max node id %s",
+                                 digits, variable, maxNodes - 1);
+        log.info("Node id {} read from environment variable {}", nodeId, variable);
+        return (int) nodeId;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
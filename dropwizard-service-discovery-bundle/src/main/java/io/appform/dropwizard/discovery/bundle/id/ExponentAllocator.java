@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+/**
+ * Hands out unique (time, exponent) slots for id generation.
+ * A slot is packed into a single long so that allocation does not create garbage.
+ */
+public interface ExponentAllocator {
+    int EXPONENT_BITS = 20;
+    long EXPONENT_MASK = (1L << EXPONENT_BITS) - 1;
+
+    /**
+     * Reserve a free exponent in the current millisecond. Hands over to the wait strategy of the allocator if the
+     * current millisecond is exhausted.
+     *
+     * @return Reserved slot. Use {@link #time(long)} and {@link #exponent(long)} to unpack it.
+     */
+    long allocate();
+
+    /**
+     * Reserve up to count free exponents in the current millisecond in one go. Hands over to the wait strategy of the
+     * allocator if the current millisecond is exhausted.
+     *
+     * @param slots  Array to write reserved slots to
+     * @param offset Position in slots to start writing from
+     * @param count  Maximum number of slots to reserve
+     * @return Number of slots reserved. Always at least one.
+     */
+    int allocate(long[] slots, int offset, int count);
+
+    /**
+     * Reserve a free exponent in the current millisecond that is accepted by the filter. Does not wait for the clock
+     * to tick, callers are expected to retry in a later millisecond.
+     *
+     * @param filter Decides which (time, exponent) slots are acceptable
+     * @return Reserved slot or -1 if no free exponent of the current millisecond is accepted
+     * @throws UnsupportedOperationException if the allocator can not look at exponents without using them up
+     */
+    long allocate(ExponentFilter filter);
+
+    /**
+     * Latest tick slots might have been reserved in, so that another allocator for the same ids can take over from
+     * the tick after it without handing out the same slots again
+     *
+     * @return Tick no slot has been reserved after. Might be the current tick even if nothing was reserved in it.
+     */
+    long lastTick();
+
+    /**
+     * Report allocation probes and waits to the passed metrics
+     */
+    void useMetrics(IdGeneratorMetrics metrics);
+
+    @FunctionalInterface
+    interface ExponentFilter {
+        boolean accept(long time, int exponent);
+    }
+
+    static long pack(long time, int exponent) {
+        return (time << EXPONENT_BITS) | exponent;
+    }
+
+    static long time(long slot) {
+        return slot >>> EXPONENT_BITS;
+    }
+
+    static int exponent(long slot) {
+        return (int) (slot & EXPONENT_MASK);
+    }
+}
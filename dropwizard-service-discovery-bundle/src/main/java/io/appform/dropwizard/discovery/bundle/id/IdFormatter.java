@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import com.google.common.base.Preconditions;
+import org.joda.time.DateTimeZone;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Writes ids of the form prefix + yyMMddHHmmssSSS + node(%04d) + exponent(%03d) straight into a char buffer.
+ * Other {@link IdLayout}s change the number of sub second, node and exponent digits.
+ * The yyMMddHHmmss part is computed once per second and the node digits once per formatter, so formatting an id
+ * does not go through Joda or {@link String#format(String, Object...)}.
+ * Suffixes can also be written as ASCII bytes or appended to a {@link StringBuilder}, for callers that serialize ids
+ * without going through a String.
+ */
+public class IdFormatter {
+    //Timestamp length of the default layout
+    public static final int TIMESTAMP_LENGTH = 15;
+    private static final int SECOND_LENGTH = 12;
+    private static final DateTimeFormatter SECOND_FORMATTER = DateTimeFormat.forPattern("yyMMddHHmmss");
+
+    private static final class CachedSecond {
+        private final long second;
+        private final DateTimeZone zone;
+        private final char[] digits;
+        private final byte[] asciiDigits;
+
+        private CachedSecond(long second, DateTimeZone zone, char[] digits) {
+            this.second = second;
+            this.zone = zone;
+            this.digits = digits;
+            this.asciiDigits = ascii(digits);
+        }
+    }
+
+    private final char[] nodeDigits;
+    private final byte[] asciiNodeDigits;
+    private final int fractionDigits;
+    private final int tickMillis;
+    private final int exponentDigits;
+    private volatile CachedSecond cachedSecond = new CachedSecond(Long.MIN_VALUE, null, new char[SECOND_LENGTH]);
+
+    public IdFormatter(int node) {
+        this(node, new IdLayout());
+    }
+
+    public IdFormatter(int node, IdLayout layout) {
+        layout.validate();
+        Preconditions.checkArgument(node >= 0 && node < layout.maxNodes(),
+                                    "Node %s does not fit in %s digits", node, layout.getNodeDigits());
+        this.nodeDigits = String.format("%0" + layout.getNodeDigits() + "d", node).toCharArray();
+        this.asciiNodeDigits = ascii(nodeDigits);
+        this.fractionDigits = layout.getTimestampPrecision().getFractionDigits();
+        this.tickMillis = layout.tickMillis();
+        this.exponentDigits = layout.getExponentDigits();
+    }
+
+    /**
+     * Number of characters an id takes after the prefix
+     */
+    public int suffixLength() {
+        return SECOND_LENGTH + fractionDigits + nodeDigits.length + exponentDigits;
+    }
+
+    public String format(String prefix, long time, int exponent) {
+        final int length = prefix.length() + suffixLength();
+        //Not cached in a thread local, callers might be short lived virtual threads that format a single id
+        final char[] buffer = new char[length];
+        prefix.getChars(0, prefix.length(), buffer, 0);
+        writeSuffix(buffer, prefix.length(), time, exponent);
+        return new String(buffer, 0, length);
+    }
+
+    /**
+     * Write timestamp, node and exponent digits at the given offset
+     *
+     * @return Offset after the last written character
+     */
+    public int writeSuffix(char[] target, int offset, long time, int exponent) {
+        int position = offset;
+        System.arraycopy(secondDigits(time), 0, target, position, SECOND_LENGTH);
+        position += SECOND_LENGTH;
+        position = writeDigits(target, position, (int) Math.floorMod(time, 1000L) / tickMillis, fractionDigits);
+        System.arraycopy(nodeDigits, 0, target, position, nodeDigits.length);
+        position += nodeDigits.length;
+        return writeDigits(target, position, exponent, exponentDigits);
+    }
+
+    /**
+     * Write timestamp, node and exponent digits as ASCII bytes at the given offset
+     *
+     * @return Offset after the last written byte
+     */
+    public int writeSuffix(byte[] target, int offset, long time, int exponent) {
+        int position = offset;
+        System.arraycopy(cachedSecond(time).asciiDigits, 0, target, position, SECOND_LENGTH);
+        position += SECOND_LENGTH;
+        position = writeDigits(target, position, (int) Math.floorMod(time, 1000L) / tickMillis, fractionDigits);
+        System.arraycopy(asciiNodeDigits, 0, target, position, asciiNodeDigits.length);
+        position += asciiNodeDigits.length;
+        return writeDigits(target, position, exponent, exponentDigits);
+    }
+
+    /**
+     * Write timestamp, node and exponent digits as ASCII bytes at the given index. The position of the buffer is not
+     * changed.
+     *
+     * @return Index after the last written byte
+     */
+    public int writeSuffix(ByteBuffer target, int offset, long time, int exponent) {
+        if (target.hasArray()) {
+            return writeSuffix(target.array(), target.arrayOffset() + offset, time, exponent) - target.arrayOffset();
+        }
+        int position = put(target, offset, cachedSecond(time).asciiDigits);
+        position = writeDigits(target, position, (int) Math.floorMod(time, 1000L) / tickMillis, fractionDigits);
+        position = put(target, position, asciiNodeDigits);
+        return writeDigits(target, position, exponent, exponentDigits);
+    }
+
+    /**
+     * Append timestamp, node and exponent digits
+     */
+    public StringBuilder appendSuffix(StringBuilder target, long time, int exponent) {
+        target.append(secondDigits(time));
+        appendDigits(target, (int) Math.floorMod(time, 1000L) / tickMillis, fractionDigits);
+        target.append(nodeDigits);
+        return appendDigits(target, exponent, exponentDigits);
+    }
+
+    private char[] secondDigits(long time) {
+        return cachedSecond(time).digits;
+    }
+
+    private CachedSecond cachedSecond(long time) {
+        final long second = Math.floorDiv(time, 1000L);
+        final DateTimeZone zone = DateTimeZone.getDefault();
+        CachedSecond cached = cachedSecond;
+        if (cached.second != second || cached.zone != zone) {
+            //Zone offsets are whole seconds, so the local second only changes at a utc second boundary
+            cached = new CachedSecond(second, zone, SECOND_FORMATTER.withZone(zone)
+                    .print(second * 1000L)
+                    .toCharArray());
+            cachedSecond = cached;
+        }
+        return cached;
+    }
+
+    private static int writeDigits(char[] target, int offset, int value, int width) {
+        int remaining = value;
+        for (int i = offset + width - 1; i >= offset; i--) {
+            target[i] = (char) ('0' + remaining % 10);
+            remaining /= 10;
+        }
+        return offset + width;
+    }
+
+    private static int writeDigits(byte[] target, int offset, int value, int width) {
+        int remaining = value;
+        for (int i = offset + width - 1; i >= offset; i--) {
+            target[i] = (byte) ('0' + remaining % 10);
+            remaining /= 10;
+        }
+        return offset + width;
+    }
+
+    private static int writeDigits(ByteBuffer target, int offset, int value, int width) {
+        int remaining = value;
+        for (int i = offset + width - 1; i >= offset; i--) {
+            target.put(i, (byte) ('0' + remaining % 10));
+            remaining /= 10;
+        }
+        return offset + width;
+    }
+
+    private static StringBuilder appendDigits(StringBuilder target, int value, int width) {
+        int divisor = 1;
+        for (int i = 1; i < width; i++) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            target.append((char) ('0' + value / divisor % 10));
+        }
+        return target;
+    }
+
+    private static int put(ByteBuffer target, int offset, byte[] bytes) {
+        for (int i = 0; i < bytes.length; i++) {
+            target.put(offset + i, bytes[i]);
+        }
+        return offset + bytes.length;
+    }
+
+    private static byte[] ascii(char[] digits) {
+        final byte[] bytes = new byte[digits.length];
+        for (int i = 0; i < digits.length; i++) {
+            bytes[i] = (byte) digits[i];
+        }
+        return bytes;
+    }
+}
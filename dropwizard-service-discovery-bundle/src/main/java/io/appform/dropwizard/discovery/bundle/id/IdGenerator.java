@@ -17,110 +17,102 @@
 
 package io.appform.dropwizard.discovery.bundle.id;
 
-import com.github.rholder.retry.RetryException;
-import com.github.rholder.retry.Retryer;
-import com.github.rholder.retry.RetryerBuilder;
-import com.github.rholder.retry.StopStrategies;
 import com.google.common.base.Preconditions;
-import com.google.common.collect.ImmutableList;
 import io.appform.dropwizard.discovery.bundle.id.constraints.IdValidationConstraint;
-import lombok.Data;
-import lombok.extern.slf4j.Slf4j;
-import org.joda.time.DateTime;
-import org.joda.time.format.DateTimeFormat;
-import org.joda.time.format.DateTimeFormatter;
-
-import java.security.SecureRandom;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
+import io.appform.dropwizard.discovery.bundle.id.constraints.impl.KeyPartitioner;
+
+import java.nio.ByteBuffer;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
-import java.util.concurrent.ExecutionException;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
- * Id generation
+ * Id generation.
+ * Static facade over a process wide {@link NodeIdGenerator}.
  */
-@Slf4j
 public class IdGenerator {
 
-    private static final int MINIMUM_ID_LENGTH = 22;
+    private static volatile NodeIdGenerator generator = NodeIdGenerator.builder().build();
 
-    private enum IdValidationState {
-        VALID,
-        INVALID_RETRYABLE,
-        INVALID_NON_RETRYABLE
+    public static void initialize(int node) {
+        initialize(node, AllocationMode.RANDOM);
     }
 
-    private static final class IdInfo {
-        int exponent;
-        long time;
+    /**
+     * Initialize the generator with the given exponent allocation mode.
+     * Must be called before any id is generated.
+     *
+     * @param node Node id for this process
+     * @param mode How exponents are picked within a millisecond
+     */
+    public static void initialize(int node, AllocationMode mode) {
+        generator = generator.reinitialize(node, mode);
+    }
 
-        public IdInfo(int exponent, long time) {
-            this.exponent = exponent;
-            this.time = time;
-        }
+    /**
+     * Use the passed generator for all static calls
+     *
+     * @param generator Generator to delegate to
+     */
+    public static void initialize(NodeIdGenerator generator) {
+        Preconditions.checkArgument(null != generator, "Provide a non null generator");
+        IdGenerator.generator = generator;
     }
 
-    private static SecureRandom random = new SecureRandom(Long.toBinaryString(System.currentTimeMillis()).getBytes());
-    private static int nodeId;
-    private static DateTimeFormatter formatter = DateTimeFormat.forPattern("yyMMddHHmmssSSS");
-    private static final CollisionChecker collisionChecker = new CollisionChecker();
-    private static List<IdValidationConstraint> globalConstraints = Collections.emptyList();
-    private static Map<String, List<IdValidationConstraint>> domainSpecificConstraints = new HashMap<>();
-    private static final Retryer<GenerationResult> retrier = RetryerBuilder.<GenerationResult>newBuilder()
-            .withStopStrategy(StopStrategies.stopAfterAttempt(512))
-            .retryIfException()
-            .retryIfResult(Objects::isNull)
-            .retryIfResult(result -> result.getState().equals(IdValidationState.INVALID_RETRYABLE))
-            .build();
-    private static final String patternString = "(.*)([0-9]{15})([0-9]{4})([0-9]{3})";
-    private static Pattern pattern = Pattern.compile(patternString);
+    /**
+     * @return Generator the static calls are delegated to
+     */
+    public static NodeIdGenerator getGenerator() {
+        return generator;
+    }
 
-    public static void initialize(int node) {
-        nodeId = node;
+    /**
+     * Drop all constraints. Metrics are left as they are.
+     */
+    public static void cleanUp() {
+        generator.cleanUp();
     }
 
-    public static synchronized void cleanUp() {
-        globalConstraints.clear();
-        domainSpecificConstraints.clear();
+    /**
+     * Report id generation metrics to the passed sink. Metrics are not collected unless this is called.
+     *
+     * @param metrics Sink for metrics. Pass {@link IdGeneratorMetrics#NOOP} to stop reporting.
+     */
+    public static void useMetrics(IdGeneratorMetrics metrics) {
+        generator.useMetrics(metrics);
     }
 
     public static void initialize(
             int node, List<IdValidationConstraint> globalConstraints, Map<String, List<IdValidationConstraint>> domainSpecificConstraints) {
-        nodeId = node;
-        IdGenerator.globalConstraints = globalConstraints != null
-                ? globalConstraints
-                : Collections.emptyList();
-        IdGenerator.domainSpecificConstraints.putAll(domainSpecificConstraints);
+        initialize(node, globalConstraints, domainSpecificConstraints, AllocationMode.RANDOM);
     }
 
-    public static synchronized void registerGlobalConstraints(IdValidationConstraint... constraints) {
-        registerGlobalConstraints(ImmutableList.copyOf(constraints));
+    public static void initialize(
+            int node,
+            List<IdValidationConstraint> globalConstraints,
+            Map<String, List<IdValidationConstraint>> domainSpecificConstraints,
+            AllocationMode mode) {
+        final NodeIdGenerator initialized = generator.reinitialize(node, mode);
+        initialized.replaceGlobalConstraints(globalConstraints);
+        initialized.addDomainSpecificConstraints(domainSpecificConstraints);
+        generator = initialized;
+    }
+
+    public static void registerGlobalConstraints(IdValidationConstraint... constraints) {
+        generator.registerGlobalConstraints(constraints);
     }
 
-    public static synchronized void registerGlobalConstraints(List<IdValidationConstraint> constraints) {
-        Preconditions.checkArgument(null != constraints && !constraints.isEmpty());
-        if(null == globalConstraints) {
-            globalConstraints = new ArrayList<>();
-        }
-        globalConstraints.addAll(constraints);
+    public static void registerGlobalConstraints(List<IdValidationConstraint> constraints) {
+        generator.registerGlobalConstraints(constraints);
     }
 
-    public static synchronized void registerDomainSpecificConstraints(String domain, IdValidationConstraint... validationConstraints) {
-        registerDomainSpecificConstraints(domain, ImmutableList.copyOf(validationConstraints));
+    public static void registerDomainSpecificConstraints(String domain, IdValidationConstraint... validationConstraints) {
+        generator.registerDomainSpecificConstraints(domain, validationConstraints);
     }
 
-    public static synchronized void registerDomainSpecificConstraints(String domain, List<IdValidationConstraint> validationConstraints) {
-        Preconditions.checkArgument(null != validationConstraints && !validationConstraints.isEmpty());
-        if(!domainSpecificConstraints.containsKey(domain)) {
-            domainSpecificConstraints.put(domain, new ArrayList<>());
-        }
-        domainSpecificConstraints.get(domain).addAll(validationConstraints);
+    public static void registerDomainSpecificConstraints(String domain, List<IdValidationConstraint> validationConstraints) {
+        generator.registerDomainSpecificConstraints(domain, validationConstraints);
     }
 
     /**
@@ -130,15 +122,93 @@ public class IdGenerator {
      * @return Generated Id
      */
     public static Id generate(String prefix) {
-        final IdInfo idInfo = random();
-        DateTime dateTime = new DateTime(idInfo.time);
-        final String id = String.format("%s%s%04d%03d", prefix, formatter.print(dateTime), nodeId, idInfo.exponent);
-        return Id.builder()
-                .id(id)
-                .exponent(idInfo.exponent)
-                .generatedDate(dateTime.toDate())
-                .node(nodeId)
-                .build();
+        return generator.generate(prefix);
+    }
+
+    /**
+     * Generate a batch of ids with given prefix.
+     * Exponents are reserved in blocks, so this is a lot cheaper than calling {@link #generate(String)} in a loop.
+     *
+     * @param prefix String prefix with will be used to blindly merge
+     * @param count  Number of ids to generate
+     * @return Generated Ids
+     */
+    public static List<Id> generate(String prefix, int count) {
+        return generator.generate(prefix, count);
+    }
+
+    /**
+     * Fill the passed array with generated ids.
+     * Exponents are reserved in blocks, so this is a lot cheaper than calling {@link #generate(String)} in a loop.
+     *
+     * @param prefix String prefix with will be used to blindly merge
+     * @param ids    Array to fill
+     */
+    public static void generate(String prefix, Id[] ids) {
+        generator.generate(prefix, ids);
+    }
+
+    /**
+     * Generate a time ordered numeric id. See {@link NumericIdCodec} for the layout and conversion to the string form.
+     *
+     * @return Generated numeric id
+     */
+    public static long generateNumeric() {
+        return generator.generateNumeric();
+    }
+
+    /**
+     * Fill the passed array with generated numeric ids.
+     * Exponents are reserved in blocks, so this is a lot cheaper than calling {@link #generateNumeric()} in a loop.
+     *
+     * @param ids Array to fill
+     */
+    public static void generateNumeric(long[] ids) {
+        generator.generateNumeric(ids);
+    }
+
+    /**
+     * Write an id into the array without creating an {@link Id} or a String.
+     * See {@link NodeIdGenerator#generate(EncodedPrefix, byte[], int)}.
+     *
+     * @param prefix Pre encoded prefix
+     * @param target Array to write to
+     * @param offset Index of the first byte of the id
+     * @return Time and exponent of the id, read them with {@link IdMetadata}
+     */
+    public static long generate(EncodedPrefix prefix, byte[] target, int offset) {
+        return generator.generate(prefix, target, offset);
+    }
+
+    /**
+     * Write an id into the buffer without creating an {@link Id} or a String.
+     * See {@link NodeIdGenerator#generate(EncodedPrefix, ByteBuffer, int)}.
+     *
+     * @param prefix Pre encoded prefix
+     * @param target Buffer to write to
+     * @param offset Index of the first byte of the id
+     * @return Time and exponent of the id, read them with {@link IdMetadata}
+     */
+    public static long generate(EncodedPrefix prefix, ByteBuffer target, int offset) {
+        return generator.generate(prefix, target, offset);
+    }
+
+    /**
+     * Append an id to the builder without creating an {@link Id} or a String
+     *
+     * @param prefix Pre encoded prefix
+     * @param target Builder to append to
+     * @return Time and exponent of the id, read them with {@link IdMetadata}
+     */
+    public static long generate(EncodedPrefix prefix, StringBuilder target) {
+        return generator.generate(prefix, target);
+    }
+
+    /**
+     * Number of bytes an id with the prefix takes when written to a byte array or buffer
+     */
+    public static int encodedLength(EncodedPrefix prefix) {
+        return generator.encodedLength(prefix);
     }
 
     /**
@@ -151,7 +221,7 @@ public class IdGenerator {
      * @return
      */
     public static Optional<Id> generateWithConstraints(String prefix, String domain) {
-        return generateWithConstraints(prefix, domainSpecificConstraints.getOrDefault(domain, Collections.emptyList()), true);
+        return generator.generateWithConstraints(prefix, domain);
     }
 
     /**
@@ -165,7 +235,7 @@ public class IdGenerator {
      * @return Id if it could be generated
      */
     public static Optional<Id> generateWithConstraints(String prefix, String domain, boolean skipGlobal) {
-        return generateWithConstraints(prefix, domainSpecificConstraints.getOrDefault(domain, Collections.emptyList()), skipGlobal);
+        return generator.generateWithConstraints(prefix, domain, skipGlobal);
     }
 
     /**
@@ -178,42 +248,80 @@ public class IdGenerator {
      * @return Id if it could be generated
      */
     public static Optional<Id> generateWithConstraints(String prefix, final List<IdValidationConstraint> inConstraints) {
-        return generateWithConstraints(prefix, inConstraints, false);
+        return generator.generateWithConstraints(prefix, inConstraints);
+    }
+
+    /**
+     * Generate a batch of ids that match all constraints registered for the domain.
+     * NOTE: There are performance implications for this.
+     * The evaluation of constraints will take it's toll on id generation rates. Tun rests to check speed.
+     *
+     * @param prefix String prefix
+     * @param domain Domain for constraint selection
+     * @param count  Number of ids to generate
+     * @return Generated ids. Will have less than count ids if enough matching ids could not be generated.
+     */
+    public static List<Id> generateWithConstraints(String prefix, String domain, int count) {
+        return generator.generateWithConstraints(prefix, domain, count);
+    }
+
+    /**
+     * Generate a batch of ids that match all passed constraints.
+     * NOTE: There are performance implications for this.
+     * The evaluation of constraints will take it's toll on id generation rates. Tun rests to check speed.
+     *
+     * @param prefix        String prefix
+     * @param inConstraints Constraints that need to be validate.
+     * @param skipGlobal    Skip global constrains and use only passed ones
+     * @param count         Number of ids to generate
+     * @return Generated ids. Will have less than count ids if enough matching ids could not be generated.
+     */
+    public static List<Id> generateWithConstraints(
+            String prefix, final List<IdValidationConstraint> inConstraints, boolean skipGlobal, int count) {
+        return generator.generateWithConstraints(prefix, inConstraints, skipGlobal, count);
     }
 
     /**
-     * Generate id by parsing given string
+     * Generate id that falls in the given partition.
+     * Instead of generating ids till one of them matches, free exponents of the current millisecond are searched for
+     * one that maps to the partition. Partitions of the exponents looked at are remembered for the millisecond,
+     * separately for every prefix and partitioner, so the same candidate is not hashed twice even when calls for
+     * different prefixes or partitioners are interleaved. Global constraints are not evaluated.
+     * Needs {@link AllocationMode#RANDOM} allocation.
+     *
+     * @param prefix      String prefix
+     * @param partition   Partition the id needs to fall in
+     * @param partitioner Partitioner used to map ids to partitions
+     * @return Id if one could be found within a few milliseconds
+     * @throws IllegalStateException if the generator uses {@link AllocationMode#SEQUENTIAL} allocation
+     */
+    public static Optional<Id> generateForPartition(String prefix, int partition, KeyPartitioner partitioner) {
+        return generator.generateForPartition(prefix, partition, partitioner);
+    }
+
+    /**
+     * Generate id by parsing given string. The string is parsed with the id layout of the generator.
      *
      * @param idString String idString
      * @return Id if it could be generated
      */
     public static Optional<Id> parse(final String idString) {
-        if (idString == null
-                || idString.length() < MINIMUM_ID_LENGTH) {
-            return Optional.empty();
-        }
-        try {
-            Matcher matcher = pattern.matcher(idString);
-            if (matcher.find()) {
-                return Optional.of(Id.builder()
-                        .id(idString)
-                        .node(Integer.parseInt(matcher.group(3)))
-                        .exponent(Integer.parseInt(matcher.group(4)))
-                        .generatedDate(formatter.parseDateTime(matcher.group(2)).toDate())
-                        .build());
-            }
-            return Optional.empty();
-        } catch (Exception e) {
-            log.warn("Could not parse idString {}", e.getMessage());
-            return Optional.empty();
-        }
+        return generator.parse(idString);
     }
 
-    @Data
-    private static class GenerationResult {
-        private final Id id;
-        private final IdValidationState state;
+    /**
+     * Inclusive bounds of the ids with the prefix that can be generated in a time window, for range scans on an id
+     * column. See {@link NumericIdCodec#lowerBound(long)} and {@link NumericIdCodec#upperBound(long)} for numeric ids.
+     *
+     * @param prefix String prefix
+     * @param from   Start of the window, inclusive
+     * @param to     End of the window, inclusive
+     * @return Min and max ids
+     */
+    public static IdRange range(String prefix, Date from, Date to) {
+        return generator.range(prefix, from, to);
     }
+
     /**
      * Generate id that mathces all passed constraints.
      * NOTE: There are performance implications for this.
@@ -225,59 +333,6 @@ public class IdGenerator {
      * @return Id if it could be generated
      */
     public static Optional<Id> generateWithConstraints(String prefix, final List<IdValidationConstraint> inConstraints, boolean skipGlobal) {
-        try {
-            final GenerationResult generationResult = retrier.call(() -> {
-                Id id = generate(prefix);
-                return new GenerationResult(id, validateId(inConstraints, id, skipGlobal));
-            });
-            return Optional.ofNullable(generationResult.getId());
-        }
-        catch (ExecutionException e) {
-            log.error("Error occurred while generating id with prefix " + prefix, e);
-        }
-        catch (RetryException e) {
-            log.error("Failed to generate id with prefix " + prefix + " after max attempts (512)", e);
-        }
-        return Optional.empty();
-    }
-
-    private static synchronized IdInfo random() {
-        int randomGen;
-        long time;
-        do {
-            time = System.currentTimeMillis();
-            randomGen = random.nextInt(Constants.MAX_ID_PER_MS);
-        } while (!collisionChecker.check(time, randomGen));
-        return new IdInfo(randomGen, time);
-    }
-
-    private static IdValidationState validateId(List<IdValidationConstraint> inConstraints, Id id, boolean skipGlobal) {
-        //First evaluate global constraints
-        final IdValidationConstraint failedGlobalConstraint
-                = skipGlobal || null == globalConstraints
-                ? null
-                : globalConstraints.stream()
-                        .filter(constraint -> !constraint.isValid(id))
-                        .findFirst()
-                        .orElse(null);
-        if(null != failedGlobalConstraint) {
-            return failedGlobalConstraint.failFast()
-                    ? IdValidationState.INVALID_NON_RETRYABLE
-                    : IdValidationState.INVALID_RETRYABLE;
-        }
-        //Evaluate local + domain constraints
-        final IdValidationConstraint failedLocalConstraint
-                = null == inConstraints
-                ? null
-                : inConstraints.stream()
-                .filter(constraint -> !constraint.isValid(id))
-                .findFirst()
-                .orElse(null);
-        if(null != failedLocalConstraint) {
-            return failedLocalConstraint.failFast()
-                    ? IdValidationState.INVALID_NON_RETRYABLE
-                    : IdValidationState.INVALID_RETRYABLE;
-        }
-        return IdValidationState.VALID;
+        return generator.generateWithConstraints(prefix, inConstraints, skipGlobal);
     }
 }
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+/**
+ * Receives instrumentation events from {@link IdGenerator} and the exponent allocators.
+ * Everything is a no-op by default, see {@link DropwizardIdGeneratorMetrics} for an implementation that publishes to a
+ * metric registry.
+ */
+public interface IdGeneratorMetrics {
+    IdGeneratorMetrics NOOP = new IdGeneratorMetrics() {};
+
+    /**
+     * Ids handed out
+     */
+    default void generated(int count) {
+    }
+
+    /**
+     * Stripes looked at and CAS attempts made to reserve exponents in one allocation
+     */
+    default void allocationProbes(int probes) {
+    }
+
+    /**
+     * Time spent in the wait strategy after the current tick ran out of exponents
+     */
+    default void waited(long nanos) {
+    }
+
+    /**
+     * An allocation found the current tick out of exponents. A rising rate is an early sign of bursts that will show
+     * up as generation latency.
+     */
+    default void saturated() {
+    }
+
+    /**
+     * The clock read lower than a time already handed out. Reported once per regression.
+     *
+     * @param millis How far the clock was behind
+     */
+    default void clockSteppedBack(long millis) {
+    }
+
+    /**
+     * A node id was claimed by {@link NodeIdManager}
+     *
+     * @param nanos      Time taken to claim it
+     * @param collisions Claims lost to other processes on the way
+     */
+    default void nodeIdAcquired(long nanos, int collisions) {
+    }
+
+    /**
+     * Ids generated to find one that matches the constraints of a domain
+     */
+    default void constraintAttempts(String domain, int attempts) {
+    }
+
+    /**
+     * Constraints of a domain could not be met within the maximum number of attempts
+     */
+    default void retriesExhausted(String domain) {
+    }
+}
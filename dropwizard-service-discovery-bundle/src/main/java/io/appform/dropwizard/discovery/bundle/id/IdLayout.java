@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import com.google.common.base.Preconditions;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+/**
+ * Layout of the digits after the prefix of an id: yyMMddHHmmss, the sub second digits of the timestamp precision,
+ * node digits and exponent digits. The node digits decide how many nodes can be told apart, and the exponent digits
+ * how many ids a node can generate per timestamp tick.
+ * The default layout is the original one: millisecond timestamps, four node digits and three exponent digits.
+ */
+@Data
+@NoArgsConstructor
+public class IdLayout {
+    public static final int DEFAULT_NODE_DIGITS = 4;
+    public static final int DEFAULT_EXPONENT_DIGITS = 3;
+    public static final int MAX_NODE_DIGITS = 9;
+    //10^6 exponents still fit the exponent bits of an allocator slot
+    public static final int MAX_EXPONENT_DIGITS = 6;
+    private static final int SECOND_DIGITS = 12;
+
+    @Min(1)
+    @Max(MAX_NODE_DIGITS)
+    private int nodeDigits = DEFAULT_NODE_DIGITS;
+
+    @Min(1)
+    @Max(MAX_EXPONENT_DIGITS)
+    private int exponentDigits = DEFAULT_EXPONENT_DIGITS;
+
+    @NotNull
+    private TimestampPrecision timestampPrecision = TimestampPrecision.MILLISECONDS;
+
+    @Builder
+    public IdLayout(int nodeDigits, int exponentDigits, TimestampPrecision timestampPrecision) {
+        this.nodeDigits = nodeDigits == 0
+                          ? DEFAULT_NODE_DIGITS
+                          : nodeDigits;
+        this.exponentDigits = exponentDigits == 0
+                              ? DEFAULT_EXPONENT_DIGITS
+                              : exponentDigits;
+        this.timestampPrecision = null != timestampPrecision
+                                  ? timestampPrecision
+                                  : TimestampPrecision.MILLISECONDS;
+        validate();
+    }
+
+    /**
+     * Layouts read from configuration are only checked by bean validation, so users of a layout call this as well
+     *
+     * @throws IllegalArgumentException if the layout can not be used
+     */
+    public void validate() {
+        Preconditions.checkArgument(nodeDigits >= 1 && nodeDigits <= MAX_NODE_DIGITS,
+                                    "Node digits must be between 1 and %s", MAX_NODE_DIGITS);
+        Preconditions.checkArgument(exponentDigits >= 1 && exponentDigits <= MAX_EXPONENT_DIGITS,
+                                    "Exponent digits must be between 1 and %s", MAX_EXPONENT_DIGITS);
+        Preconditions.checkArgument(null != timestampPrecision, "Provide a non null timestamp precision");
+    }
+
+    /**
+     * Number of node ids that fit the node digits
+     */
+    public int maxNodes() {
+        return pow10(nodeDigits);
+    }
+
+    /**
+     * Number of ids a node can generate per timestamp tick
+     */
+    public int maxIdsPerTick() {
+        return pow10(exponentDigits);
+    }
+
+    public int tickMillis() {
+        return timestampPrecision.getTickMillis();
+    }
+
+    public int timestampLength() {
+        return SECOND_DIGITS + timestampPrecision.getFractionDigits();
+    }
+
+    /**
+     * Number of characters an id takes after the prefix
+     */
+    public int suffixLength() {
+        return timestampLength() + nodeDigits + exponentDigits;
+    }
+
+    private static int pow10(int digits) {
+        int value = 1;
+        for (int i = 0; i < digits; i++) {
+            value *= 10;
+        }
+        return value;
+    }
+}
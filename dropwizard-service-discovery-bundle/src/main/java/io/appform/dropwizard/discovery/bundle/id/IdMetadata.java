@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+/**
+ * Reads the metadata returned by the {@link NodeIdGenerator} methods that write ids into caller supplied buffers.
+ * Metadata is the generation time in epoch millis shifted left by {@value #EXPONENT_BITS} bits, ORed with the
+ * exponent. The node is the one of the generator.
+ */
+public final class IdMetadata {
+    public static final int EXPONENT_BITS = 20;
+    private static final long EXPONENT_MASK = (1L << EXPONENT_BITS) - 1;
+
+    private IdMetadata() {}
+
+    public static long time(long metadata) {
+        return metadata >>> EXPONENT_BITS;
+    }
+
+    public static int exponent(long metadata) {
+        return (int) (metadata & EXPONENT_MASK);
+    }
+
+    static long pack(long time, int exponent) {
+        return (time << EXPONENT_BITS) | exponent;
+    }
+}
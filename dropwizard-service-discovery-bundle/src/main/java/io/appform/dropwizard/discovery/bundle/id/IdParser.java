@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import lombok.extern.slf4j.Slf4j;
+import org.joda.time.DateTimeZone;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+
+import java.util.Date;
+import java.util.Optional;
+
+/**
+ * Parses ids by reading digits at fixed offsets.
+ * Accepts exactly the inputs that the pattern (.*)([0-9]{15})([0-9]{4})([0-9]{3}) used with
+ * {@link java.util.regex.Matcher#find()} and a Joda yyMMddHHmmssSSS parser used to accept: the id suffix is the
+ * right most run of 22 digits in the first line that has one, and the timestamp is interpreted in the default zone.
+ * Parsers for other {@link IdLayout}s look for a run of {@link IdLayout#suffixLength()} digits instead.
+ */
+@Slf4j
+public class IdParser {
+    public static final long INVALID_TIME = Long.MIN_VALUE;
+    //Suffix length of the default layout
+    public static final int SUFFIX_LENGTH = 22;
+    private static final int SECOND_LENGTH = 12;
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    private final int suffixLength;
+    private final int timestampLength;
+    private final int nodeLength;
+    private final int exponentLength;
+    private final int fractionDigits;
+    private final int tickMillis;
+
+    //Two digit year to year, as resolved by Joda's pivot year at the time the parser is created
+    private final int[] years = new int[100];
+
+    public IdParser() {
+        this(new IdLayout());
+    }
+
+    public IdParser(IdLayout layout) {
+        layout.validate();
+        this.suffixLength = layout.suffixLength();
+        this.timestampLength = layout.timestampLength();
+        this.nodeLength = layout.getNodeDigits();
+        this.exponentLength = layout.getExponentDigits();
+        this.fractionDigits = layout.getTimestampPrecision().getFractionDigits();
+        this.tickMillis = layout.tickMillis();
+        final DateTimeFormatter formatter = DateTimeFormat.forPattern("yyMMddHHmmssSSS").withZoneUTC();
+        for (int i = 0; i < years.length; i++) {
+            years[i] = formatter.parseDateTime(String.format("%02d0101000000000", i)).getYear();
+        }
+    }
+
+    /**
+     * Parse given id
+     *
+     * @param idString String idString
+     * @return Id if it could be parsed
+     */
+    public Optional<Id> parse(final String idString) {
+        if (idString == null
+                || idString.length() < suffixLength) {
+            return Optional.empty();
+        }
+        final int suffixStart = suffixStart(idString);
+        if (suffixStart < 0) {
+            return Optional.empty();
+        }
+        final long time = epochMillis(idString, suffixStart);
+        if (time == INVALID_TIME) {
+            log.warn("Could not parse idString {}: invalid timestamp", idString);
+            return Optional.empty();
+        }
+        return Optional.of(new Id(idString, new Date(time), node(idString, suffixStart), exponent(idString, suffixStart)));
+    }
+
+    /**
+     * Number of digits an id has after the prefix
+     */
+    public int suffixLength() {
+        return suffixLength;
+    }
+
+    /**
+     * Find where the timestamp, node and exponent digits start
+     *
+     * @return Index of the first timestamp digit or -1 if there is no such run of digits
+     */
+    public int suffixStart(CharSequence id) {
+        final int length = id.length();
+        int lineStart = 0;
+        while (lineStart <= length) {
+            int lineEnd = lineStart;
+            while (lineEnd < length && !isLineTerminator(id.charAt(lineEnd))) {
+                lineEnd++;
+            }
+            int digits = 0;
+            for (int i = lineEnd - 1; i >= lineStart; i--) {
+                digits = isDigit(id.charAt(i)) ? digits + 1 : 0;
+                if (digits == suffixLength) {
+                    return i;
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+        return -1;
+    }
+
+    /**
+     * Compute the generation time of the id from its timestamp digits
+     *
+     * @return Epoch millis or {@link #INVALID_TIME} if the digits do not make a valid local time
+     */
+    public long epochMillis(CharSequence id, int suffixStart) {
+        final int year = years[digits(id, suffixStart, 2)];
+        final int month = digits(id, suffixStart + 2, 2);
+        final int day = digits(id, suffixStart + 4, 2);
+        final int hour = digits(id, suffixStart + 6, 2);
+        final int minute = digits(id, suffixStart + 8, 2);
+        final int second = digits(id, suffixStart + 10, 2);
+        final int millis = digits(id, suffixStart + SECOND_LENGTH, fractionDigits) * tickMillis;
+        if (month < 1 || month > 12
+                || day < 1 || day > daysInMonth(year, month)
+                || hour > 23
+                || minute > 59
+                || second > 59) {
+            return INVALID_TIME;
+        }
+        final long localMillis = daysFromCivil(year, month, day) * MILLIS_PER_DAY
+                + ((hour * 60L + minute) * 60L + second) * 1000L
+                + millis;
+        //Same resolution as Joda: earlier offset in overlaps, local times in gaps are rejected
+        final DateTimeZone zone = DateTimeZone.getDefault();
+        final int offset = zone.getOffsetFromLocal(localMillis);
+        final long time = localMillis - offset;
+        return offset == zone.getOffset(time)
+               ? time
+               : INVALID_TIME;
+    }
+
+    public int node(CharSequence id, int suffixStart) {
+        return digits(id, suffixStart + timestampLength, nodeLength);
+    }
+
+    public int exponent(CharSequence id, int suffixStart) {
+        return digits(id, suffixStart + timestampLength + nodeLength, exponentLength);
+    }
+
+    private static int digits(CharSequence id, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            value = value * 10 + (id.charAt(i) - '0');
+        }
+        return value;
+    }
+
+    private static boolean isDigit(char ch) {
+        return ch >= '0' && ch <= '9';
+    }
+
+    //Characters not matched by '.' in a java regex without DOTALL
+    private static boolean isLineTerminator(char ch) {
+        return ch == '\n' || ch == '\r' || ch == '\u0085' || ch == '\u2028' || ch == '\u2029';
+    }
+
+    private static int daysInMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    //Days since epoch for a date in the proleptic gregorian calendar
+    private static long daysFromCivil(int year, int month, int day) {
+        final int y = month <= 2 ? year - 1 : year;
+        final int era = (y >= 0 ? y : y - 399) / 400;
+        final int yearOfEra = y - era * 400;
+        final int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        final int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468;
+    }
+}
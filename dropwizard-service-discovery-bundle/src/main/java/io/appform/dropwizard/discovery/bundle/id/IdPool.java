@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Strings;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Supplies ids generated ahead of time by a background thread.
+ * The producer refills the buffer to the high watermark whenever it drops below the low watermark. Each timestamp tick
+ * it takes at most a sixteenth of the ids the node can generate in a tick, so that other callers of the generator are
+ * not starved. Ids older than the maximum age are never handed out, they are dropped by {@link #next()} when they reach
+ * the head of the buffer. An idle pool is left alone. When the buffer runs dry, ids are generated inline.
+ * Ids are generated for the prefix, and checked against the constraints of the domain if one is set.
+ */
+@Slf4j
+public class IdPool implements Closeable {
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final Duration DEFAULT_MAX_AGE = Duration.ofSeconds(1);
+    private static final int FILL_BATCH_SHARE = 16;
+
+    private final String prefix;
+    private final String domain;
+    private final int lowWatermark;
+    private final int highWatermark;
+    private final long maxAgeMs;
+    private final IdRingBuffer buffer;
+    private final Thread producer;
+    private volatile boolean running = false;
+
+    @Builder
+    public IdPool(String prefix, String domain, int capacity, int lowWatermark, int highWatermark, Duration maxAge) {
+        Preconditions.checkArgument(null != prefix, "Provide a non null prefix");
+        final int size = capacity == 0
+                         ? DEFAULT_CAPACITY
+                         : capacity;
+        Preconditions.checkArgument(size > 0 && Integer.bitCount(size) == 1, "Capacity must be a power of two");
+        this.prefix = prefix;
+        this.domain = Strings.emptyToNull(domain);
+        this.highWatermark = highWatermark == 0
+                             ? size
+                             : highWatermark;
+        this.lowWatermark = lowWatermark == 0
+                            ? this.highWatermark / 4
+                            : lowWatermark;
+        Preconditions.checkArgument(this.lowWatermark >= 0
+                                            && this.lowWatermark < this.highWatermark
+                                            && this.highWatermark <= size,
+                                    "Watermarks must satisfy 0 <= low < high <= capacity");
+        this.maxAgeMs = (null == maxAge ? DEFAULT_MAX_AGE : maxAge).toMillis();
+        Preconditions.checkArgument(this.maxAgeMs >= 2, "Max age must be at least 2 ms");
+        this.buffer = new IdRingBuffer(size);
+        this.producer = new Thread(this::produce, "id-pool-" + prefix);
+        this.producer.setDaemon(true);
+    }
+
+    public void start() {
+        running = true;
+        producer.start();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(producer);
+        try {
+            producer.join(TimeUnit.SECONDS.toMillis(1));
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Take a pre-generated id, or generate one inline if none is available
+     *
+     * @return Id. Empty only if the domain constraints could not be met by inline generation.
+     */
+    public Optional<Id> next() {
+        final long oldest = System.currentTimeMillis() - maxAgeMs;
+        Id id;
+        while (null != (id = buffer.poll())) {
+            if (id.getGeneratedDate().getTime() >= oldest) {
+                if (buffer.size() < lowWatermark) {
+                    LockSupport.unpark(producer);
+                }
+                return Optional.of(id);
+            }
+        }
+        LockSupport.unpark(producer);
+        return null == domain
+               ? Optional.of(IdGenerator.generate(prefix))
+               : IdGenerator.generateWithConstraints(prefix, domain);
+    }
+
+    public int available() {
+        return buffer.size();
+    }
+
+    private void produce() {
+        while (running) {
+            try {
+                if (buffer.size() < lowWatermark) {
+                    fill();
+                }
+            }
+            catch (Exception e) {
+                log.error("Error pre-generating ids with prefix " + prefix, e);
+            }
+            //Woken up by next() once the buffer drops below the low watermark
+            LockSupport.park(this);
+        }
+    }
+
+    private void fill() {
+        final IdLayout layout = IdGenerator.getGenerator().getLayout();
+        final int batch = Math.max(1, layout.maxIdsPerTick() / FILL_BATCH_SHARE);
+        final long tickNanos = TimeUnit.MILLISECONDS.toNanos(layout.tickMillis());
+        int required;
+        while (running && (required = Math.min(highWatermark - buffer.size(), batch)) > 0) {
+            if (null == domain) {
+                final Id[] ids = new Id[required];
+                IdGenerator.generate(prefix, ids);
+                for (Id id : ids) {
+                    buffer.offer(id);
+                }
+            }
+            else {
+                final List<Id> ids = IdGenerator.generateWithConstraints(prefix, domain, required);
+                if (ids.isEmpty()) {
+                    return;
+                }
+                ids.forEach(buffer::offer);
+            }
+            LockSupport.parkNanos(this, tickNanos);
+        }
+    }
+}
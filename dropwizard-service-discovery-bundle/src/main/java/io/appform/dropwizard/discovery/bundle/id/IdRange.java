@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import com.google.common.base.Preconditions;
+import lombok.Value;
+import org.joda.time.DateTimeZone;
+
+/**
+ * Inclusive bounds of the ids with a prefix that can be generated in a time window. Ids with the same prefix compare
+ * in the order of their timestamp digits, so the bounds can be used for range scans on an id column:
+ * WHERE id BETWEEN min AND max.
+ * Timestamps are local times. When clocks are set back, the same local times repeat and ids generated an hour apart
+ * carry the same timestamp digits. The bounds cover such windows, but can then include ids from outside the window.
+ */
+@Value
+public class IdRange {
+    private final String min;
+    private final String max;
+
+    /**
+     * @return true if the id lies within the bounds
+     */
+    public boolean contains(String id) {
+        return id.compareTo(min) >= 0 && id.compareTo(max) <= 0;
+    }
+
+    static IdRange of(String prefix, long from, long to, IdLayout layout) {
+        Preconditions.checkArgument(null != prefix, "Provide a non null prefix");
+        Preconditions.checkArgument(from <= to, "Window start %s is after the end %s", from, to);
+        final IdFormatter lowest = new IdFormatter(0, layout);
+        final IdFormatter highest = new IdFormatter(layout.maxNodes() - 1, layout);
+        final int maxExponent = layout.maxIdsPerTick() - 1;
+        String min = lowest.format(prefix, from, 0);
+        String max = highest.format(prefix, to, maxExponent);
+        //Local time only goes back where the offset drops, the lowest and highest timestamps are at the window ends
+        //or around such transitions
+        final DateTimeZone zone = DateTimeZone.getDefault();
+        //Zones without further transitions return the passed instant
+        long previous = from;
+        long transition = zone.nextTransition(from);
+        while (transition > previous && transition <= to) {
+            if (zone.getOffset(transition) < zone.getOffset(transition - 1)) {
+                min = lower(min, lowest.format(prefix, transition, 0));
+                max = higher(max, highest.format(prefix, transition - 1, maxExponent));
+            }
+            previous = transition;
+            transition = zone.nextTransition(transition);
+        }
+        return new IdRange(min, max);
+    }
+
+    private static String lower(String lhs, String rhs) {
+        return lhs.compareTo(rhs) <= 0
+               ? lhs
+               : rhs;
+    }
+
+    private static String higher(String lhs, String rhs) {
+        return lhs.compareTo(rhs) >= 0
+               ? lhs
+               : rhs;
+    }
+}
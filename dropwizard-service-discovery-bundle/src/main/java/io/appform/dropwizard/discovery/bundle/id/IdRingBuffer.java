@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock free multi producer multi consumer queue of ids.
+ * Every cell carries a sequence number that tells producers and consumers whether it is free or filled for their
+ * position, so offer and poll are a single CAS on the tail or head when uncontended.
+ */
+class IdRingBuffer {
+    private final int mask;
+    private final AtomicReferenceArray<Id> items;
+    private final AtomicLongArray sequences;
+    private final AtomicLong head = new AtomicLong(0);
+    private final AtomicLong tail = new AtomicLong(0);
+
+    IdRingBuffer(int capacity) {
+        Preconditions.checkArgument(capacity > 0 && Integer.bitCount(capacity) == 1,
+                                    "Capacity must be a power of two");
+        this.mask = capacity - 1;
+        this.items = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    boolean offer(Id id) {
+        long position = tail.get();
+        while (true) {
+            final int index = (int) position & mask;
+            final long available = sequences.get(index) - position;
+            if (available == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    items.set(index, id);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            }
+            else if (available < 0) {
+                return false;
+            }
+            position = tail.get();
+        }
+    }
+
+    Id poll() {
+        long position = head.get();
+        while (true) {
+            final int index = (int) position & mask;
+            final long filled = sequences.get(index) - (position + 1);
+            if (filled == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    final Id id = items.get(index);
+                    items.set(index, null);
+                    sequences.set(index, position + mask + 1);
+                    return id;
+                }
+            }
+            else if (filled < 0) {
+                return null;
+            }
+            position = head.get();
+        }
+    }
+
+    int size() {
+        final long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, mask + 1L));
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
+import com.google.common.base.Strings;
+import com.google.common.net.InetAddresses;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.InterfaceAddress;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Derives the node id from the host part of the address of the host.
+ * The address is either passed in, as address/prefix length, or is the one non loopback, non link local IPv4 address
+ * of the interfaces that are up. Hosts in a subnet get distinct node ids as long as the subnet has no more addresses
+ * than there are node ids, so startup fails for bigger subnets. Startup also fails if the prefix length of a passed
+ * address is not known, or if it is a full length prefix as handed to pods by some container networks, as nothing is
+ * known about the addresses of other hosts then. Such addresses can be taken modulo the number of node ids if that is
+ * explicitly allowed. That is unique only within an aligned block of that many addresses.
+ */
+@Slf4j
+public class IpNodeIdProvider implements NodeIdProvider {
+    private final int maxNodes;
+    private final Supplier<HostAddress> address;
+    private final boolean moduloAllowed;
+
+    /**
+     * Address of a host and the length of the network prefix of its subnet
+     */
+    @Value
+    public static class HostAddress {
+        private final InetAddress address;
+        /**
+         * -1 if not known
+         */
+        private final int prefixLength;
+    }
+
+    public IpNodeIdProvider(IdLayout layout) {
+        this(layout, IpNodeIdProvider::interfaceAddress);
+    }
+
+    /**
+     * @param address Address as a.b.c.d or a.b.c.d/prefix length. Picked from the network interfaces if empty.
+     */
+    public IpNodeIdProvider(IdLayout layout, String address) {
+        this(layout, address, false);
+    }
+
+    /**
+     * @param address       Address as a.b.c.d or a.b.c.d/prefix length. Picked from the network interfaces if empty.
+     * @param moduloAllowed Take addresses without a subnet modulo the number of node ids instead of failing
+     */
+    public IpNodeIdProvider(IdLayout layout, String address, boolean moduloAllowed) {
+        this(layout,
+             Strings.isNullOrEmpty(address)
+             ? IpNodeIdProvider::interfaceAddress
+             : () -> parse(address),
+             moduloAllowed);
+    }
+
+    public IpNodeIdProvider(IdLayout layout, Supplier<HostAddress> address) {
+        this(layout, address, false);
+    }
+
+    public IpNodeIdProvider(IdLayout layout, Supplier<HostAddress> address, boolean moduloAllowed) {
+        layout.validate();
+        this.maxNodes = layout.maxNodes();
+        this.address = address;
+        this.moduloAllowed = moduloAllowed;
+    }
+
+    @Override
+    public int nodeId() {
+        final HostAddress hostAddress = address.get();
+        final InetAddress inetAddress = hostAddress.getAddress();
+        if (!usable(inetAddress)) {
+            throw new IllegalStateException("Address " + inetAddress.getHostAddress()
+                                                    + " is shared by other hosts and can not be used for a node id");
+        }
+        final byte[] bytes = inetAddress.getAddress();
+        long value = 0;
+        for (int i = Math.max(0, bytes.length - 4); i < bytes.length; i++) {
+            value = (value << 8) | (bytes[i] & 0xFF);
+        }
+        final int nodeId;
+        //A host route (/32) says nothing about the addresses of other hosts
+        if (hostAddress.getPrefixLength() < 0 || hostAddress.getPrefixLength() >= bytes.length * 8) {
+            if (!moduloAllowed) {
+                throw new IllegalStateException(String.format(
+                        "Address %s has no subnet, other hosts could get the same node id. Pass the address with the "
+                                + "prefix length of its subnet, allow taking it modulo the node ids or use another "
+                                + "node id source",
+                        inetAddress.getHostAddress()));
+            }
+            nodeId = (int) (value % maxNodes);
+            log.warn("Node id {} derived from address {} without a subnet. Hosts whose addresses are {} apart get the "
+                             + "same node id", nodeId, inetAddress.getHostAddress(), maxNodes);
+        }
+        else {
+            final int hostBits = bytes.length * 8 - hostAddress.getPrefixLength();
+            if (hostBits >= 32 || (1L << hostBits) > maxNodes) {
+                throw new IllegalStateException(String.format(
+                        "Subnet %s/%d has more addresses than the %d node ids, hosts in it could get the same node id."
+                                + " Use more node digits or another node id source",
+                        inetAddress.getHostAddress(), hostAddress.getPrefixLength(), maxNodes));
+            }
+            nodeId = (int) (value & ((1L << hostBits) - 1));
+            log.info("Node id {} derived from address {}/{}",
+                     nodeId, inetAddress.getHostAddress(), hostAddress.getPrefixLength());
+        }
+        return nodeId;
+    }
+
+    static HostAddress parse(String address) {
+        final List<String> parts = Splitter.on('/').trimResults().splitToList(address);
+        Preconditions.checkArgument(parts.size() <= 2, "Address %s is not of the form address/prefix length", address);
+        final InetAddress inetAddress = InetAddresses.forString(parts.get(0));
+        final int prefixLength = parts.size() == 2
+                                 ? Integer.parseInt(parts.get(1))
+                                 : -1;
+        Preconditions.checkArgument(parts.size() == 1
+                                            || (prefixLength >= 0 && prefixLength <= inetAddress.getAddress().length * 8),
+                                    "Prefix length %s is too long for %s", prefixLength, address);
+        return new HostAddress(inetAddress, prefixLength);
+    }
+
+    private static HostAddress interfaceAddress() {
+        final List<HostAddress> candidates = new ArrayList<>();
+        try {
+            for (NetworkInterface networkInterface : Collections.list(NetworkInterface.getNetworkInterfaces())) {
+                if (!networkInterface.isUp() || networkInterface.isLoopback()) {
+                    continue;
+                }
+                for (InterfaceAddress interfaceAddress : networkInterface.getInterfaceAddresses()) {
+                    final InetAddress inetAddress = interfaceAddress.getAddress();
+                    if (inetAddress instanceof Inet4Address && usable(inetAddress)) {
+                        candidates.add(new HostAddress(inetAddress, interfaceAddress.getNetworkPrefixLength()));
+                    }
+                }
+            }
+        }
+        catch (SocketException e) {
+            throw new IllegalStateException("Could not list the network interfaces of the host", e);
+        }
+        if (candidates.size() != 1) {
+            throw new IllegalStateException(String.format(
+                    "Found %s usable addresses on the host, expected exactly one. Set the address to derive the "
+                            + "node id from in the configuration",
+                    candidates.stream()
+                            .map(candidate -> candidate.getAddress().getHostAddress())
+                            .collect(Collectors.toList())));
+        }
+        return candidates.get(0);
+    }
+
+    private static boolean usable(InetAddress address) {
+        return !address.isLoopbackAddress()
+                && !address.isLinkLocalAddress()
+                && !address.isAnyLocalAddress()
+                && !address.isMulticastAddress();
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Time source that never goes below the last time it handed out. While the underlying clock is behind, for example
+ * after an NTP step, the last time is handed out again, so allocators wait for the clock to catch up instead of
+ * reusing exponents of earlier ticks.
+ * With a checkpoint file, the high water mark survives restarts. The file is memory mapped and holds a time that is
+ * reserved ahead of the clock, so it is written once per reservation instead of once per millisecond, and a write is
+ * a plain store to the mapping. The reservation is extended once half of it is used up, and every extension is
+ * forced to disk on a background thread. As long as a flush takes less than half the reservation, the checkpoint on
+ * disk covers every time handed out, even if the host crashes. After a restart, times start at the first tick above
+ * the reservation. Waiting for the clock to get there is not reported as the clock stepping back.
+ * Callers that issue times ahead of this source, such as a {@link BorrowingWaitStrategy}, pass how far ahead they can
+ * get as the lead. The unused half of the reservation is kept at least that long, so borrowed times are covered too.
+ */
+@Slf4j
+public class MonotonicTimeSource implements TimeSource, Closeable {
+    public static final long DEFAULT_RESERVE_MILLIS = 200;
+
+    private final TimeSource delegate;
+    private final long reserveMillis;
+    private final long tickMillis;
+    private final AtomicLong highWaterMark;
+    private final FileChannel channel;
+    private final MappedByteBuffer checkpoint;
+    private final ExecutorService flusher;
+    private final AtomicBoolean flushPending = new AtomicBoolean();
+    private final Lock reservationLock = new ReentrantLock();
+    //Times restored from the checkpoint are ahead of the clock until it catches up
+    private final long resumedAt;
+    private volatile long extendAfter;
+    private volatile boolean behind = false;
+    private volatile IdGeneratorMetrics metrics = IdGeneratorMetrics.NOOP;
+
+    public MonotonicTimeSource() {
+        this(TimeSource.SYSTEM, null, 0, 0, 0);
+    }
+
+    /**
+     * @param delegate       Clock to read. Defaults to the system clock.
+     * @param checkpointFile File to keep the high water mark in. Kept in memory only if not set.
+     * @param reserveMillis  How far ahead of the clock the checkpoint is written. Defaults to
+     *                       {@value #DEFAULT_RESERVE_MILLIS}.
+     * @param tickMillis     Timestamp tick of the ids, see {@link IdLayout#tickMillis()}. Restarts resume on a tick
+     *                       boundary, so that the tick of the reservation is skipped. Defaults to a millisecond.
+     * @param leadMillis     How far ahead of this source ids can be timestamped, for example by borrowing ticks. The
+     *                       reservation needs to be at least twice this. The default reservation is raised to that if
+     *                       needed. Defaults to none.
+     */
+    @Builder
+    public MonotonicTimeSource(
+            TimeSource delegate, Path checkpointFile, long reserveMillis, long tickMillis, long leadMillis) {
+        Preconditions.checkArgument(reserveMillis >= 0, "Reservation can not be negative");
+        Preconditions.checkArgument(tickMillis >= 0, "Tick can not be negative");
+        Preconditions.checkArgument(leadMillis >= 0, "Lead can not be negative");
+        Preconditions.checkArgument(reserveMillis == 0 || reserveMillis >= 2 * leadMillis,
+                                    "Reservation of %s ms does not cover a lead of %s ms", reserveMillis, leadMillis);
+        this.delegate = null != delegate
+                        ? delegate
+                        : TimeSource.SYSTEM;
+        this.reserveMillis = reserveMillis == 0
+                             ? Math.max(DEFAULT_RESERVE_MILLIS, 2 * leadMillis)
+                             : reserveMillis;
+        this.tickMillis = tickMillis == 0
+                          ? 1
+                          : tickMillis;
+        if (null == checkpointFile) {
+            this.channel = null;
+            this.checkpoint = null;
+            this.flusher = null;
+            this.highWaterMark = new AtomicLong(0);
+            this.resumedAt = 0;
+            this.extendAfter = Long.MAX_VALUE;
+            return;
+        }
+        try {
+            this.channel = FileChannel.open(checkpointFile,
+                                            StandardOpenOption.CREATE,
+                                            StandardOpenOption.READ,
+                                            StandardOpenOption.WRITE);
+            this.checkpoint = channel.map(FileChannel.MapMode.READ_WRITE, 0, Long.BYTES);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Could not map clock checkpoint " + checkpointFile, e);
+        }
+        this.flusher = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+                                                                 .setNameFormat("id-clock-checkpoint-%d")
+                                                                 .setDaemon(true)
+                                                                 .build());
+        final long previous = checkpoint.getLong(0);
+        final long resumeAt = previous > 0
+                              ? (previous / this.tickMillis + 1) * this.tickMillis
+                              : 0;
+        log.info("Clock checkpoint {} was at {}, times will start at or above {}", checkpointFile, previous, resumeAt);
+        this.highWaterMark = new AtomicLong(resumeAt);
+        this.resumedAt = resumeAt;
+        this.extendAfter = resumeAt - 1;
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        final long now = delegate.currentTimeMillis();
+        final long last = highWaterMark.get();
+        final long time;
+        if (now < last) {
+            if (!behind) {
+                behind = true;
+                reportBehind(last, now);
+            }
+            time = last;
+        }
+        else {
+            if (behind) {
+                behind = false;
+            }
+            if (now > last) {
+                highWaterMark.accumulateAndGet(now, Math::max);
+            }
+            time = now;
+        }
+        if (time > extendAfter) {
+            reserve(time);
+        }
+        return time;
+    }
+
+    @Override
+    public void useMetrics(IdGeneratorMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Force the checkpoint to disk
+     */
+    @Override
+    public void close() throws IOException {
+        if (null == channel) {
+            return;
+        }
+        reservationLock.lock();
+        try {
+            flusher.shutdown();
+            checkpoint.force();
+            channel.close();
+        }
+        finally {
+            reservationLock.unlock();
+        }
+    }
+
+    private void reportBehind(long last, long now) {
+        final long lag = last - now;
+        //Right after a restart the clock is up to a reservation and a tick behind the restored time
+        if (last == resumedAt && lag <= reserveMillis + tickMillis) {
+            log.info("Clock is {} ms behind the time restored from the checkpoint, holding time at {}", lag, last);
+            return;
+        }
+        log.warn("Clock is {} ms behind the last issued time, holding time at {}", lag, last);
+        metrics.clockSteppedBack(lag);
+    }
+
+    /**
+     * The checkpoint is written before the new reservation is published, so a time is never handed out unless it is
+     * covered by the checkpoint
+     */
+    private void reserve(long time) {
+        reservationLock.lock();
+        try {
+            if (time > extendAfter) {
+                final long reservation = time + reserveMillis;
+                checkpoint.putLong(0, reservation);
+                extendAfter = reservation - reserveMillis / 2;
+                flush();
+            }
+        }
+        finally {
+            reservationLock.unlock();
+        }
+    }
+
+    private void flush() {
+        if (flusher.isShutdown() || !flushPending.compareAndSet(false, true)) {
+            return;
+        }
+        flusher.execute(() -> {
+            //Cleared first, so a reservation written while forcing is flushed again
+            flushPending.set(false);
+            try {
+                checkpoint.force();
+            }
+            catch (RuntimeException e) {
+                log.warn("Could not flush the clock checkpoint", e);
+            }
+        });
+    }
+}
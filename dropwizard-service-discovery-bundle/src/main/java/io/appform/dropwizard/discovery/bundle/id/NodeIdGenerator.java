@@ -0,0 +1,815 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.appform.dropwizard.discovery.bundle.id.constraints.IdValidationConstraint;
+import io.appform.dropwizard.discovery.bundle.id.constraints.impl.KeyPartitioner;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Generates ids for a node. Generators share no state, so several of them can be used side by side.
+ * Ids carry the prefix, so ids with different prefixes can never collide. When prefix scoping is enabled, every prefix
+ * gets its own exponent allocator and with it the full budget of ids per timestamp tick. Only the first maxScopedPrefixes prefixes are scoped, the rest share the node wide allocator.
+ * Numeric ids carry no prefix and are always allocated from the node wide allocator.
+ * The {@link IdLayout} decides the node digits, exponent digits and timestamp precision of string ids. The default
+ * layout has a budget of {@value Constants#MAX_ID_PER_MS} ids per millisecond.
+ * NOTE: Generators for the same node must not generate ids with the same prefix, as they do not know about each
+ * other's exponents. {@link IdGenerator} uses a single generator for the whole process.
+ */
+@Slf4j
+public class NodeIdGenerator {
+    private static final int MAX_ATTEMPTS = 512;
+    private static final int MAX_PARTITION_SEARCH_TICKS = 64;
+    private static final int DEFAULT_MAX_SCOPED_PREFIXES = 256;
+    //Allocators of scoped prefixes are created lazily, so their memory is bounded upfront
+    private static final long MAX_SCOPED_ALLOCATOR_BYTES = 16L * 1024 * 1024;
+    private static final int MAX_PARTITION_TABLES = 64;
+    //Tables are an int per exponent, so fewer are kept for layouts with many ids per tick
+    private static final int MAX_PARTITION_TABLE_BYTES = 4 * 1024 * 1024;
+    //Domain reported to metrics when constraints are passed in directly
+    private static final String UNNAMED_DOMAIN = "unnamed";
+
+    private enum IdValidationState {
+        VALID,
+        INVALID_RETRYABLE,
+        INVALID_NON_RETRYABLE
+    }
+
+    /**
+     * Prefix and partitioner a partition table is kept for. Partitioners are compared by identity, as the tables are.
+     */
+    private static final class PartitionTableKey {
+        private final String prefix;
+        private final KeyPartitioner partitioner;
+
+        private PartitionTableKey(String prefix, KeyPartitioner partitioner) {
+            this.prefix = prefix;
+            this.partitioner = partitioner;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof PartitionTableKey)) {
+                return false;
+            }
+            final PartitionTableKey other = (PartitionTableKey) o;
+            return partitioner == other.partitioner && prefix.equals(other.prefix);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * prefix.hashCode() + System.identityHashCode(partitioner);
+        }
+    }
+
+    /**
+     * Registered constraints along with their compiled forms. Replaced as a whole on registration, so generating
+     * threads never need a lock to read them.
+     */
+    private static final class ConstraintSnapshot {
+        private static final ConstraintSnapshot EMPTY = new ConstraintSnapshot(ImmutableList.of(), ImmutableMap.of());
+
+        private final List<IdValidationConstraint> global;
+        private final Map<String, List<IdValidationConstraint>> domainSpecific;
+        private final CompiledConstraints compiledGlobal;
+        private final Map<String, CompiledConstraints> compiledDomainSpecific;
+        private final Map<String, CompiledConstraints> compiledDomainSpecificWithGlobal;
+
+        private ConstraintSnapshot(
+                List<IdValidationConstraint> global, Map<String, List<IdValidationConstraint>> domainSpecific) {
+            this.global = ImmutableList.copyOf(global);
+            this.domainSpecific = ImmutableMap.copyOf(domainSpecific);
+            this.compiledGlobal = CompiledConstraints.of(this.global);
+            final ImmutableMap.Builder<String, CompiledConstraints> domainOnly = ImmutableMap.builder();
+            final ImmutableMap.Builder<String, CompiledConstraints> withGlobal = ImmutableMap.builder();
+            this.domainSpecific.forEach((domain, constraints) -> {
+                domainOnly.put(domain, CompiledConstraints.of(constraints));
+                withGlobal.put(domain, CompiledConstraints.of(this.global, constraints));
+            });
+            this.compiledDomainSpecific = domainOnly.build();
+            this.compiledDomainSpecificWithGlobal = withGlobal.build();
+        }
+
+        private ConstraintSnapshot withGlobal(List<IdValidationConstraint> global) {
+            return new ConstraintSnapshot(global, domainSpecific);
+        }
+
+        private ConstraintSnapshot withDomainSpecific(Map<String, List<IdValidationConstraint>> domainSpecific) {
+            return new ConstraintSnapshot(global, domainSpecific);
+        }
+
+        private CompiledConstraints compiled(String domain, boolean skipGlobal) {
+            final CompiledConstraints compiled = skipGlobal
+                                                 ? compiledDomainSpecific.get(domain)
+                                                 : compiledDomainSpecificWithGlobal.get(domain);
+            if (null != compiled) {
+                return compiled;
+            }
+            return skipGlobal
+                   ? CompiledConstraints.EMPTY
+                   : compiledGlobal;
+        }
+    }
+
+    @Getter
+    private final int nodeId;
+    @Getter
+    private final AllocationMode allocationMode;
+    @Getter
+    private final boolean prefixScoped;
+    @Getter
+    private final IdLayout layout;
+    private final int maxScopedPrefixes;
+    private final int maxIdsPerTick;
+    private final int tickMillis;
+    private final WaitStrategy waitStrategy;
+    private final TimeSource timeSource;
+    private final boolean numericSupported;
+    private final IdFormatter idFormatter;
+    private final IdParser idParser;
+    private final ExponentAllocator allocator;
+    private final ConcurrentMap<String, ExponentAllocator> scopedAllocators = new ConcurrentHashMap<>();
+    private final AtomicInteger numScopedPrefixes = new AtomicInteger(0);
+    private final AtomicReference<ConstraintSnapshot> constraints = new AtomicReference<>(ConstraintSnapshot.EMPTY);
+    private volatile IdGeneratorMetrics metrics;
+    private final int maxPartitionTables;
+    private final ConcurrentMap<PartitionTableKey, PartitionTable> partitionTables = new ConcurrentHashMap<>();
+
+    /**
+     * @param node                      Node id, usually the one fixed by {@link NodeIdManager}
+     * @param allocationMode            How exponents are picked within a millisecond. Defaults to random.
+     * @param prefixScoped              Give every prefix its own exponents
+     * @param maxScopedPrefixes         Number of prefixes that get their own exponents. Defaults to
+     *                                  {@value #DEFAULT_MAX_SCOPED_PREFIXES}, or as many as fit in 16 MB of
+     *                                  allocators for layouts with many exponent digits.
+     * @param globalConstraints         Constraints evaluated for all constrained ids unless skipped
+     * @param domainSpecificConstraints Constraints by domain
+     * @param metrics                   Sink for metrics. Defaults to none.
+     * @param layout                    Layout of generated ids. Defaults to the original layout.
+     * @param waitStrategy              What to do when a tick runs out of exponents. Defaults to spinning and then
+     *                                  yielding till the clock ticks.
+     * @param timeSource                Clock for id timestamps. Defaults to a {@link MonotonicTimeSource} over the
+     *                                  system clock, so ids are never timestamped below ones already handed out.
+     */
+    @Builder
+    public NodeIdGenerator(
+            int node,
+            AllocationMode allocationMode,
+            boolean prefixScoped,
+            int maxScopedPrefixes,
+            List<IdValidationConstraint> globalConstraints,
+            Map<String, List<IdValidationConstraint>> domainSpecificConstraints,
+            IdGeneratorMetrics metrics,
+            IdLayout layout,
+            WaitStrategy waitStrategy,
+            TimeSource timeSource) {
+        Preconditions.checkArgument(maxScopedPrefixes >= 0, "Number of scoped prefixes can not be negative");
+        final IdLayout idLayout = null != layout
+                                  ? layout
+                                  : new IdLayout();
+        idLayout.validate();
+        Preconditions.checkArgument(node >= 0 && node < idLayout.maxNodes(),
+                                    "Node %s does not fit in %s digits", node, idLayout.getNodeDigits());
+        this.nodeId = node;
+        this.waitStrategy = null != waitStrategy
+                            ? waitStrategy
+                            : new SpinThenYieldWaitStrategy();
+        this.timeSource = null != timeSource
+                          ? timeSource
+                          : new MonotonicTimeSource();
+        this.allocationMode = null != allocationMode
+                              ? allocationMode
+                              : AllocationMode.RANDOM;
+        this.prefixScoped = prefixScoped;
+        this.maxScopedPrefixes = maxScopedPrefixes(
+                maxScopedPrefixes, this.allocationMode.allocatorSizeInBytes(idLayout.maxIdsPerTick()));
+        //Copied, as layouts read from configuration are mutable
+        this.layout = new IdLayout(idLayout.getNodeDigits(),
+                                   idLayout.getExponentDigits(),
+                                   idLayout.getTimestampPrecision());
+        this.maxIdsPerTick = this.layout.maxIdsPerTick();
+        this.tickMillis = this.layout.tickMillis();
+        this.maxPartitionTables = Math.max(
+                1, Math.min(MAX_PARTITION_TABLES, MAX_PARTITION_TABLE_BYTES / (Integer.BYTES * this.maxIdsPerTick)));
+        this.numericSupported = this.layout.maxNodes() <= Constants.MAX_NUM_NODES
+                && this.maxIdsPerTick <= Constants.MAX_ID_PER_MS;
+        this.idFormatter = new IdFormatter(node, this.layout);
+        this.idParser = new IdParser(this.layout);
+        this.metrics = null != metrics
+                       ? metrics
+                       : IdGeneratorMetrics.NOOP;
+        this.timeSource.useMetrics(this.metrics);
+        this.allocator = newAllocator();
+        replaceGlobalConstraints(globalConstraints);
+        addDomainSpecificConstraints(domainSpecificConstraints);
+    }
+
+    /**
+     * @return Constraints registered by domain
+     */
+    public Map<String, List<IdValidationConstraint>> getDomainSpecificConstraints() {
+        return constraints.get().domainSpecific;
+    }
+
+    /**
+     * Drop all constraints. Metrics are left as they are, use {@link #useMetrics(IdGeneratorMetrics)} to stop
+     * reporting them.
+     */
+    public void cleanUp() {
+        constraints.set(ConstraintSnapshot.EMPTY);
+    }
+
+    /**
+     * Report id generation metrics to the passed sink
+     *
+     * @param metrics Sink for metrics. Pass {@link IdGeneratorMetrics#NOOP} to stop reporting.
+     */
+    public void useMetrics(IdGeneratorMetrics metrics) {
+        Preconditions.checkArgument(null != metrics, "Provide non null metrics");
+        this.metrics = metrics;
+        timeSource.useMetrics(metrics);
+        allocator.useMetrics(metrics);
+        scopedAllocators.values().forEach(scopedAllocator -> scopedAllocator.useMetrics(metrics));
+    }
+
+    public void registerGlobalConstraints(IdValidationConstraint... constraints) {
+        registerGlobalConstraints(ImmutableList.copyOf(constraints));
+    }
+
+    public void registerGlobalConstraints(List<IdValidationConstraint> constraints) {
+        Preconditions.checkArgument(null != constraints && !constraints.isEmpty());
+        this.constraints.updateAndGet(current -> current.withGlobal(ImmutableList.<IdValidationConstraint>builder()
+                .addAll(current.global)
+                .addAll(constraints)
+                .build()));
+    }
+
+    public void registerDomainSpecificConstraints(String domain, IdValidationConstraint... validationConstraints) {
+        registerDomainSpecificConstraints(domain, ImmutableList.copyOf(validationConstraints));
+    }
+
+    public void registerDomainSpecificConstraints(String domain, List<IdValidationConstraint> validationConstraints) {
+        Preconditions.checkArgument(null != validationConstraints && !validationConstraints.isEmpty());
+        constraints.updateAndGet(current -> {
+            final Map<String, List<IdValidationConstraint>> updated = new HashMap<>(current.domainSpecific);
+            updated.put(domain, ImmutableList.<IdValidationConstraint>builder()
+                    .addAll(current.domainSpecific.getOrDefault(domain, Collections.emptyList()))
+                    .addAll(validationConstraints)
+                    .build());
+            return current.withDomainSpecific(updated);
+        });
+    }
+
+    /**
+     * Generate id with given prefix
+     *
+     * @param prefix String prefix with will be used to blindly merge
+     * @return Generated Id
+     */
+    public Id generate(String prefix) {
+        final long slot = allocator(prefix).allocate();
+        final long time = millis(slot);
+        final int exponent = ExponentAllocator.exponent(slot);
+        metrics.generated(1);
+        return new Id(idFormatter.format(prefix, time, exponent), new Date(time), nodeId, exponent);
+    }
+
+    /**
+     * Generate a batch of ids with given prefix. Exponents are reserved in blocks.
+     *
+     * @param prefix String prefix with will be used to blindly merge
+     * @param count  Number of ids to generate
+     * @return Generated Ids
+     */
+    public List<Id> generate(String prefix, int count) {
+        final Id[] ids = new Id[count];
+        generate(prefix, ids);
+        return Arrays.asList(ids);
+    }
+
+    /**
+     * Fill the passed array with generated ids. Exponents are reserved in blocks.
+     *
+     * @param prefix String prefix with will be used to blindly merge
+     * @param ids    Array to fill
+     */
+    public void generate(String prefix, Id[] ids) {
+        generate(prefix, ids, 0, ids.length);
+    }
+
+    /**
+     * Generate a time ordered numeric id. See {@link NumericIdCodec} for the layout and conversion to the string form.
+     * Needs an id layout with at most {@value IdLayout#DEFAULT_NODE_DIGITS} node digits and
+     * {@value IdLayout#DEFAULT_EXPONENT_DIGITS} exponent digits. Numeric ids always decode to the default layout.
+     *
+     * @return Generated numeric id
+     */
+    public long generateNumeric() {
+        checkNumericSupported();
+        final long slot = allocator.allocate();
+        metrics.generated(1);
+        return NumericIdCodec.encode(millis(slot), nodeId, ExponentAllocator.exponent(slot));
+    }
+
+    /**
+     * Fill the passed array with generated numeric ids. Exponents are reserved in blocks.
+     *
+     * @param ids Array to fill
+     */
+    public void generateNumeric(long[] ids) {
+        checkNumericSupported();
+        int reserved = 0;
+        while (reserved < ids.length) {
+            reserved += allocator.allocate(ids, reserved, ids.length - reserved);
+        }
+        metrics.generated(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = NumericIdCodec.encode(millis(ids[i]), nodeId, ExponentAllocator.exponent(ids[i]));
+        }
+    }
+
+    /**
+     * Number of bytes an id with the prefix takes when written with {@link #generate(EncodedPrefix, byte[], int)}
+     */
+    public int encodedLength(EncodedPrefix prefix) {
+        return prefix.byteLength() + idFormatter.suffixLength();
+    }
+
+    /**
+     * Write an id with the given prefix into the array, without creating an {@link Id} or a String
+     *
+     * @param prefix Pre encoded prefix
+     * @param target Array to write to, needs {@link #encodedLength(EncodedPrefix)} bytes from the offset
+     * @param offset Index of the first byte of the id
+     * @return Time and exponent of the id, read them with {@link IdMetadata}
+     */
+    public long generate(EncodedPrefix prefix, byte[] target, int offset) {
+        Preconditions.checkPositionIndexes(offset, offset + encodedLength(prefix), target.length);
+        final long slot = allocator(prefix.getPrefix()).allocate();
+        final long time = millis(slot);
+        final int exponent = ExponentAllocator.exponent(slot);
+        idFormatter.writeSuffix(target, prefix.write(target, offset), time, exponent);
+        metrics.generated(1);
+        return IdMetadata.pack(time, exponent);
+    }
+
+    /**
+     * Write an id with the given prefix into the buffer at an index, without creating an {@link Id} or a String.
+     * The position of the buffer is not changed.
+     *
+     * @param prefix Pre encoded prefix
+     * @param target Buffer to write to, needs {@link #encodedLength(EncodedPrefix)} bytes from the offset
+     * @param offset Index of the first byte of the id
+     * @return Time and exponent of the id, read them with {@link IdMetadata}
+     */
+    public long generate(EncodedPrefix prefix, ByteBuffer target, int offset) {
+        Preconditions.checkPositionIndexes(offset, offset + encodedLength(prefix), target.limit());
+        final long slot = allocator(prefix.getPrefix()).allocate();
+        final long time = millis(slot);
+        final int exponent = ExponentAllocator.exponent(slot);
+        idFormatter.writeSuffix(target, prefix.write(target, offset), time, exponent);
+        metrics.generated(1);
+        return IdMetadata.pack(time, exponent);
+    }
+
+    /**
+     * Append an id with the given prefix to the builder, without creating an {@link Id} or a String
+     *
+     * @param prefix Pre encoded prefix
+     * @param target Builder to append to
+     * @return Time and exponent of the id, read them with {@link IdMetadata}
+     */
+    public long generate(EncodedPrefix prefix, StringBuilder target) {
+        final long slot = allocator(prefix.getPrefix()).allocate();
+        final long time = millis(slot);
+        final int exponent = ExponentAllocator.exponent(slot);
+        idFormatter.appendSuffix(prefix.append(target), time, exponent);
+        metrics.generated(1);
+        return IdMetadata.pack(time, exponent);
+    }
+
+    /**
+     * Generate id that matches the constraints registered for the domain. Global constraints are skipped.
+     *
+     * @param prefix String prefix
+     * @param domain Domain for constraint selection
+     * @return Id if it could be generated
+     */
+    public Optional<Id> generateWithConstraints(String prefix, String domain) {
+        return generateWithConstraints(prefix, domain, true);
+    }
+
+    /**
+     * Generate id that matches the constraints registered for the domain
+     *
+     * @param prefix     String prefix
+     * @param domain     Domain for constraint selection
+     * @param skipGlobal Skip global constrains and use only domain ones
+     * @return Id if it could be generated
+     */
+    public Optional<Id> generateWithConstraints(String prefix, String domain, boolean skipGlobal) {
+        return generateWithConstraints(prefix, domain, constraints.get().compiled(domain, skipGlobal), null);
+    }
+
+    /**
+     * Generate id that matches the passed and the global constraints
+     *
+     * @param prefix        String prefix
+     * @param inConstraints Constraints that need to be validate.
+     * @return Id if it could be generated
+     */
+    public Optional<Id> generateWithConstraints(String prefix, final List<IdValidationConstraint> inConstraints) {
+        return generateWithConstraints(prefix, inConstraints, false);
+    }
+
+    /**
+     * Generate id that matches all passed constraints
+     *
+     * @param prefix        String prefix
+     * @param inConstraints Constraints that need to be validate.
+     * @param skipGlobal    Skip global constrains and use only passed ones
+     * @return Id if it could be generated
+     */
+    public Optional<Id> generateWithConstraints(
+            String prefix, final List<IdValidationConstraint> inConstraints, boolean skipGlobal) {
+        return generateWithConstraints(prefix, UNNAMED_DOMAIN, compiledGlobal(skipGlobal), inConstraints);
+    }
+
+    /**
+     * Generate a batch of ids that match the constraints registered for the domain. Global constraints are skipped.
+     *
+     * @param prefix String prefix
+     * @param domain Domain for constraint selection
+     * @param count  Number of ids to generate
+     * @return Generated ids. Will have less than count ids if enough matching ids could not be generated.
+     */
+    public List<Id> generateWithConstraints(String prefix, String domain, int count) {
+        return generateWithConstraints(prefix, domain, constraints.get().compiled(domain, true), null, count);
+    }
+
+    /**
+     * Generate a batch of ids that match all passed constraints
+     *
+     * @param prefix        String prefix
+     * @param inConstraints Constraints that need to be validate.
+     * @param skipGlobal    Skip global constrains and use only passed ones
+     * @param count         Number of ids to generate
+     * @return Generated ids. Will have less than count ids if enough matching ids could not be generated.
+     */
+    public List<Id> generateWithConstraints(
+            String prefix, final List<IdValidationConstraint> inConstraints, boolean skipGlobal, int count) {
+        return generateWithConstraints(prefix, UNNAMED_DOMAIN, compiledGlobal(skipGlobal), inConstraints, count);
+    }
+
+    /**
+     * Generate id that falls in the given partition.
+     * Instead of generating ids till one of them matches, free exponents of the current tick are searched for
+     * one that maps to the partition. Partitions of the exponents looked at are remembered for the tick, separately
+     * for every prefix and partitioner, so the same candidate is not hashed twice even when calls for different
+     * prefixes or partitioners are interleaved. Global constraints are not evaluated.
+     * Needs {@link AllocationMode#RANDOM} allocation, sequential allocation can not search without using up exponents.
+     *
+     * @param prefix      String prefix
+     * @param partition   Partition the id needs to fall in
+     * @param partitioner Partitioner used to map ids to partitions
+     * @return Id if one could be found within {@value #MAX_PARTITION_SEARCH_TICKS} timestamp ticks
+     * @throws IllegalStateException if the generator uses {@link AllocationMode#SEQUENTIAL} allocation
+     */
+    public Optional<Id> generateForPartition(String prefix, int partition, KeyPartitioner partitioner) {
+        Preconditions.checkArgument(partition >= 0, "Provide a non-negative partition");
+        Preconditions.checkArgument(null != partitioner, "Provide a non null key partitioner");
+        Preconditions.checkState(allocationMode != AllocationMode.SEQUENTIAL,
+                                 "Generating for a partition needs RANDOM allocation mode");
+        final ExponentAllocator prefixAllocator = allocator(prefix);
+        final PartitionTableKey key = new PartitionTableKey(prefix, partitioner);
+        for (int i = 0; i < MAX_PARTITION_SEARCH_TICKS; i++) {
+            final long now = timeSource.currentTimeMillis() / tickMillis;
+            final long slot = prefixAllocator.allocate(
+                    (tick, exponent) -> partitionTable(key, tick * tickMillis).partition(exponent) == partition);
+            if (slot >= 0) {
+                final long time = millis(slot);
+                final int exponent = ExponentAllocator.exponent(slot);
+                metrics.generated(1);
+                return Optional.of(new Id(idFormatter.format(prefix, time, exponent), new Date(time), nodeId, exponent));
+            }
+            while (timeSource.currentTimeMillis() / tickMillis <= now) {
+                //Yield instead of spinning, so that a virtual thread does not hold on to its carrier
+                Thread.yield();
+            }
+        }
+        log.error("Could not find an id with prefix {} in partition {} within {} ticks",
+                  prefix, partition, MAX_PARTITION_SEARCH_TICKS);
+        return Optional.empty();
+    }
+
+    /**
+     * Parse an id generated with the layout of this generator
+     *
+     * @param idString String idString
+     * @return Id if it could be parsed
+     */
+    public Optional<Id> parse(final String idString) {
+        return idParser.parse(idString);
+    }
+
+    /**
+     * Bounds of the ids with the prefix that can be generated in the window, for any node
+     *
+     * @param prefix String prefix
+     * @param from   Start of the window, inclusive
+     * @param to     End of the window, inclusive
+     * @return Inclusive min and max ids
+     */
+    public IdRange range(String prefix, Date from, Date to) {
+        return IdRange.of(prefix, from.getTime(), to.getTime(), layout);
+    }
+
+    /**
+     * Generator for another node or allocation mode that carries over the constraints and metrics of this one.
+     * Returns this generator if nothing changes, so that exponents already handed out in the current millisecond are
+     * not handed out again. For the same node with another allocation mode, waits till the clock has moved past every
+     * tick this generator has handed out ids in, as the new allocators start afresh.
+     */
+    NodeIdGenerator reinitialize(int node, AllocationMode mode) {
+        Preconditions.checkArgument(null != mode, "Provide a non null allocation mode");
+        if (node == nodeId && mode == allocationMode) {
+            return this;
+        }
+        if (node == nodeId) {
+            awaitTickAfter(lastTick());
+        }
+        final ConstraintSnapshot current = constraints.get();
+        return new NodeIdGenerator(node,
+                                   mode,
+                                   prefixScoped,
+                                   maxScopedPrefixes,
+                                   current.global,
+                                   current.domainSpecific,
+                                   metrics,
+                                   layout,
+                                   waitStrategy,
+                                   timeSource);
+    }
+
+    private long lastTick() {
+        long last = allocator.lastTick();
+        for (ExponentAllocator scopedAllocator : scopedAllocators.values()) {
+            last = Math.max(last, scopedAllocator.lastTick());
+        }
+        return last;
+    }
+
+    private void awaitTickAfter(long tick) {
+        while (timeSource.currentTimeMillis() / tickMillis <= tick) {
+            Thread.yield();
+        }
+    }
+
+    void replaceGlobalConstraints(List<IdValidationConstraint> globalConstraints) {
+        constraints.updateAndGet(current -> current.withGlobal(null != globalConstraints
+                                                               ? globalConstraints
+                                                               : Collections.emptyList()));
+    }
+
+    void addDomainSpecificConstraints(Map<String, List<IdValidationConstraint>> domainSpecificConstraints) {
+        if (null == domainSpecificConstraints || domainSpecificConstraints.isEmpty()) {
+            return;
+        }
+        constraints.updateAndGet(current -> {
+            final Map<String, List<IdValidationConstraint>> updated = new HashMap<>(current.domainSpecific);
+            domainSpecificConstraints.forEach((domain, domainConstraints) -> updated.put(domain, ImmutableList.copyOf(domainConstraints)));
+            return current.withDomainSpecific(updated);
+        });
+    }
+
+    private CompiledConstraints compiledGlobal(boolean skipGlobal) {
+        return skipGlobal
+               ? CompiledConstraints.EMPTY
+               : constraints.get().compiledGlobal;
+    }
+
+    /**
+     * Ids are checked against the compiled constraints first and then against the passed ones, if any.
+     * Constraints that throw are treated as retryable failures, here and in batch generation.
+     */
+    private Optional<Id> generateWithConstraints(
+            String prefix,
+            String domain,
+            CompiledConstraints compiled,
+            List<IdValidationConstraint> inConstraints) {
+        RuntimeException lastError = null;
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            final Id id = generate(prefix);
+            final IdValidationState state;
+            try {
+                state = validateId(compiled, inConstraints, id);
+            }
+            catch (RuntimeException e) {
+                lastError = e;
+                continue;
+            }
+            if (state != IdValidationState.INVALID_RETRYABLE) {
+                //A non retryable failure hands back the failed id, as it always has
+                metrics.constraintAttempts(domain, attempt);
+                return Optional.of(id);
+            }
+        }
+        log.error("Failed to generate id with prefix " + prefix + " after max attempts (" + MAX_ATTEMPTS + ")", lastError);
+        metrics.constraintAttempts(domain, MAX_ATTEMPTS);
+        metrics.retriesExhausted(domain);
+        return Optional.empty();
+    }
+
+    private List<Id> generateWithConstraints(
+            String prefix,
+            String domain,
+            CompiledConstraints compiled,
+            List<IdValidationConstraint> inConstraints,
+            int count) {
+        final List<Id> generated = new ArrayList<>(count);
+        final Id[] candidates = new Id[count];
+        final long maxAttempts = (long) count * MAX_ATTEMPTS;
+        long attempts = 0;
+        boolean failed = false;
+        RuntimeException lastError = null;
+        while (!failed && generated.size() < count && attempts < maxAttempts) {
+            final int required = count - generated.size();
+            generate(prefix, candidates, 0, required);
+            for (int i = 0; i < required && !failed; i++) {
+                attempts++;
+                final IdValidationState state;
+                try {
+                    state = validateId(compiled, inConstraints, candidates[i]);
+                }
+                catch (RuntimeException e) {
+                    lastError = e;
+                    continue;
+                }
+                if (state == IdValidationState.VALID) {
+                    generated.add(candidates[i]);
+                }
+                else if (state == IdValidationState.INVALID_NON_RETRYABLE) {
+                    log.error("Non retryable constraint failure while generating ids with prefix {}", prefix);
+                    failed = true;
+                }
+            }
+        }
+        //Attempts are reported per requested id, to be comparable with single id generation
+        metrics.constraintAttempts(domain, (int) ((attempts + count - 1) / Math.max(count, 1)));
+        if (!failed && generated.size() < count) {
+            log.error("Could generate only " + generated.size() + " of " + count + " ids with prefix " + prefix
+                              + " after " + attempts + " attempts", lastError);
+            metrics.retriesExhausted(domain);
+        }
+        return generated;
+    }
+
+    private void generate(String prefix, Id[] ids, int offset, int count) {
+        final ExponentAllocator prefixAllocator = allocator(prefix);
+        final long[] slots = new long[count];
+        int reserved = 0;
+        while (reserved < count) {
+            reserved += prefixAllocator.allocate(slots, reserved, count - reserved);
+        }
+        for (int i = 0; i < count; i++) {
+            final long time = millis(slots[i]);
+            final int exponent = ExponentAllocator.exponent(slots[i]);
+            ids[offset + i] = new Id(idFormatter.format(prefix, time, exponent), new Date(time), nodeId, exponent);
+        }
+        metrics.generated(count);
+    }
+
+    /**
+     * Allocator for the prefix. A prefix is scoped on first use while there is room, and keeps the allocator it got
+     * the first time for the lifetime of the generator. The decision is taken inside computeIfAbsent, so racing
+     * threads can not end up on different allocators for the same prefix.
+     */
+    private ExponentAllocator allocator(String prefix) {
+        if (!prefixScoped) {
+            return allocator;
+        }
+        final ExponentAllocator scopedAllocator = scopedAllocators.get(prefix);
+        if (null != scopedAllocator) {
+            return scopedAllocator;
+        }
+        final ExponentAllocator created = scopedAllocators.computeIfAbsent(
+                prefix,
+                key -> reserveScope()
+                       ? newAllocator()
+                       : null);
+        return null != created
+               ? created
+               : allocator;
+    }
+
+    /**
+     * The count only ever grows, so a prefix that is refused a scope once is refused for good
+     */
+    private boolean reserveScope() {
+        int current;
+        do {
+            current = numScopedPrefixes.get();
+            if (current >= maxScopedPrefixes) {
+                return false;
+            }
+        } while (!numScopedPrefixes.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private static int maxScopedPrefixes(int requested, long allocatorBytes) {
+        final int affordable = (int) Math.max(1, Math.min(Integer.MAX_VALUE,
+                                                          MAX_SCOPED_ALLOCATOR_BYTES / Math.max(1, allocatorBytes)));
+        if (requested == 0) {
+            return Math.min(DEFAULT_MAX_SCOPED_PREFIXES, affordable);
+        }
+        if (requested > affordable) {
+            log.warn("{} scoped prefixes can take up to {} MB for exponent allocators",
+                     requested, requested * allocatorBytes / (1024 * 1024));
+        }
+        return requested;
+    }
+
+    private ExponentAllocator newAllocator() {
+        final ExponentAllocator newAllocator = allocationMode.allocator(maxIdsPerTick, tickMillis, waitStrategy, timeSource);
+        newAllocator.useMetrics(metrics);
+        return newAllocator;
+    }
+
+    private PartitionTable partitionTable(PartitionTableKey key, long time) {
+        PartitionTable table = partitionTables.get(key);
+        if (null == table || !table.isFor(key.prefix, key.partitioner, idFormatter, time)) {
+            if (null == table && partitionTables.size() >= maxPartitionTables) {
+                //Prefixes and partitioners are expected to be few, so running out just starts over
+                partitionTables.clear();
+            }
+            table = new PartitionTable(key.prefix, key.partitioner, idFormatter, nodeId, time, maxIdsPerTick);
+            partitionTables.put(key, table);
+        }
+        return table;
+    }
+
+    /**
+     * Start of the tick a slot was reserved in, allocators work in ticks
+     */
+    private long millis(long slot) {
+        return ExponentAllocator.time(slot) * tickMillis;
+    }
+
+    private void checkNumericSupported() {
+        Preconditions.checkState(numericSupported, "Numeric ids are not supported for id layout %s", layout);
+    }
+
+    private static IdValidationState validateId(
+            CompiledConstraints compiled, List<IdValidationConstraint> inConstraints, Id id) {
+        IdValidationConstraint failedConstraint = compiled.firstFailure(id);
+        if (null == failedConstraint && null != inConstraints) {
+            //Indexed to avoid an iterator per id, passed lists are expected to be small random access lists
+            for (int i = 0; i < inConstraints.size() && null == failedConstraint; i++) {
+                final IdValidationConstraint constraint = inConstraints.get(i);
+                if (!constraint.isValid(id)) {
+                    failedConstraint = constraint;
+                }
+            }
+        }
+        if (null == failedConstraint) {
+            return IdValidationState.VALID;
+        }
+        return failedConstraint.failFast()
+               ? IdValidationState.INVALID_NON_RETRYABLE
+               : IdValidationState.INVALID_RETRYABLE;
+    }
+}
@@ -17,37 +17,113 @@
 
 package io.appform.dropwizard.discovery.bundle.id;
 
-import com.github.rholder.retry.RetryException;
-import com.github.rholder.retry.Retryer;
-import com.github.rholder.retry.RetryerBuilder;
-import com.github.rholder.retry.StopStrategies;
-import com.google.common.base.Predicates;
+import lombok.Builder;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.curator.framework.CuratorFramework;
 import org.apache.zookeeper.CreateMode;
 import org.apache.zookeeper.KeeperException;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.security.SecureRandom;
-import java.util.concurrent.ExecutionException;
+import java.time.Duration;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Created by santanu on 2/5/16.
+ * Claims a node id for the process by creating an ephemeral node for it.
+ * Claimed ids are listed once and a free one is picked at random from that view, so that processes starting together
+ * rarely pick the same id. The view is only refreshed when a create collides and the local view has run out of free
+ * ids.
+ * With a lease file, the claimed node id and the time it was claimed are kept on local disk. After a restart the
+ * process first tries to claim the same id again with a single create, and only looks for a free id if that fails.
+ * The ephemeral node of the previous run lives till its zookeeper session expires, so a restart quicker than the
+ * session timeout finds the id still taken and claims another one.
  */
 @Slf4j
-public class NodeIdManager {
+public class NodeIdManager implements NodeIdProvider {
+    public static final Duration DEFAULT_MAX_LEASE_AGE = Duration.ofDays(1);
+    private static final long MIN_BACKOFF_MILLIS = 10;
+    private static final long MAX_BACKOFF_MILLIS = 1000;
 
     private final CuratorFramework curatorFramework;
     private final SecureRandom secureRandom;
     private final CuratorPathUtils pathUtils;
+    private final int maxNodes;
+    private final IdGeneratorMetrics metrics;
+    private final Path leaseFile;
+    private final Duration maxLeaseAge;
 
     @Getter
     private int node;
 
     public NodeIdManager(CuratorFramework curatorFramework, String processName) {
+        this(curatorFramework, processName, new IdLayout());
+    }
+
+    /**
+     * @param layout Id layout, node ids are picked from the ones that fit its node digits
+     */
+    public NodeIdManager(CuratorFramework curatorFramework, String processName, IdLayout layout) {
+        this(curatorFramework, processName, layout, IdGeneratorMetrics.NOOP);
+    }
+
+    /**
+     * @param layout  Id layout, node ids are picked from the ones that fit its node digits
+     * @param metrics Sink for acquisition time and collisions
+     */
+    public NodeIdManager(
+            CuratorFramework curatorFramework, String processName, IdLayout layout, IdGeneratorMetrics metrics) {
+        this(curatorFramework, processName, layout, metrics, null, null);
+    }
+
+    /**
+     * @param curatorFramework Curator to claim node ids with
+     * @param processName      Name of the process, node ids are unique among processes with the same name
+     * @param layout           Id layout, node ids are picked from the ones that fit its node digits. Defaults to the
+     *                         original layout.
+     * @param metrics          Sink for acquisition time and collisions. Defaults to none.
+     * @param leaseFile        File to keep the claimed node id in, to claim it again after a restart. Not kept if
+     *                         not set.
+     * @param maxLeaseAge      Leases older than this are not claimed again. Defaults to one day.
+     */
+    @Builder
+    public NodeIdManager(
+            CuratorFramework curatorFramework,
+            String processName,
+            IdLayout layout,
+            IdGeneratorMetrics metrics,
+            Path leaseFile,
+            Duration maxLeaseAge) {
+        final IdLayout idLayout = null != layout
+                                  ? layout
+                                  : new IdLayout();
+        idLayout.validate();
         this.curatorFramework = curatorFramework;
         this.secureRandom = new SecureRandom(Long.toBinaryString(System.currentTimeMillis()).getBytes());
-        this.pathUtils = new CuratorPathUtils(processName);
+        this.pathUtils = new CuratorPathUtils(processName, idLayout);
+        this.maxNodes = idLayout.maxNodes();
+        this.metrics = null != metrics
+                       ? metrics
+                       : IdGeneratorMetrics.NOOP;
+        this.leaseFile = leaseFile;
+        this.maxLeaseAge = null != maxLeaseAge
+                           ? maxLeaseAge
+                           : DEFAULT_MAX_LEASE_AGE;
+    }
+
+    @Override
+    public int nodeId() {
+        return fixNodeId();
     }
 
     public int fixNodeId() {
@@ -56,34 +132,181 @@ public class NodeIdManager {
             curatorFramework.blockUntilConnected();
             log.info("Curator started");
         } catch (InterruptedException e) {
-            log.error("Wait for curator start interrupted", e);
+            //Startup gave up on zookeeper, there is no point claiming a node id any more
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for curator to connect", e);
+        }
+        final long start = System.nanoTime();
+        int collisions = 0;
+        long backoffMillis = MIN_BACKOFF_MILLIS;
+        Set<Integer> claimed = null;
+        final int leased = readLease();
+        if (leased >= 0 && reclaim(leased)) {
+            node = leased;
+            writeLease();
+            metrics.nodeIdAcquired(System.nanoTime() - start, collisions);
+            log.info("Node will be set to node id {} reclaimed from lease", node);
+            return node;
+        }
+        while (true) {
+            final boolean fresh = null == claimed;
+            int candidate = -1;
+            try {
+                if (fresh) {
+                    claimed = claimedNodes();
+                }
+                candidate = pickFree(claimed);
+                if (candidate >= 0 && claim(candidate)) {
+                    node = candidate;
+                    break;
+                }
+            } catch (Exception e) {
+                log.error("Error creating node", e);
+                claimed = null;
+                backoffMillis = backoff(backoffMillis);
+                continue;
+            }
+            if (candidate >= 0) {
+                //Lost a race for the id, the rest of the view is still good
+                collisions++;
+                log.warn("Collision on node {}, will retry with another free node.", candidate);
+                claimed.add(candidate);
+                continue;
+            }
+            //Out of free ids, look again right away if only the local view ran out
+            claimed = null;
+            if (fresh) {
+                log.warn("All {} node ids are claimed, will look again in {} ms", maxNodes, backoffMillis);
+                backoffMillis = backoff(backoffMillis);
+            }
         }
-        Retryer<Boolean> retryer = RetryerBuilder.<Boolean>newBuilder()
-                .retryIfResult(Predicates.equalTo(false))
-                .retryIfException()
-                .withStopStrategy(StopStrategies.neverStop())
-                .build();
+        writeLease();
+        metrics.nodeIdAcquired(System.nanoTime() - start, collisions);
+        log.info("Node will be set to node id {} after {} collisions", node, collisions);
+        return node;
+    }
+
+    private Set<Integer> claimedNodes() throws Exception {
+        List<String> children;
         try {
-            retryer.call(() -> {
-                node = secureRandom.nextInt(Constants.MAX_NUM_NODES);
-                final String path = pathUtils.path(node);
-                try {
-                    curatorFramework.create()
-                            .creatingParentContainersIfNeeded()
-                            .withMode(CreateMode.EPHEMERAL)
-                            .forPath(path);
-                } catch (KeeperException.NodeExistsException e) {
-                    log.warn("Collision on node {}, will retry with new node.", node);
-                    return false;
+            children = curatorFramework.getChildren().forPath(pathUtils.parentPath());
+        } catch (KeeperException.NoNodeException e) {
+            children = Collections.emptyList();
+        }
+        final Set<Integer> claimed = new HashSet<>(children.size() * 2);
+        for (String child : children) {
+            final int claimedNode = pathUtils.nodeId(child);
+            if (claimedNode >= 0) {
+                claimed.add(claimedNode);
+            }
+        }
+        return claimed;
+    }
+
+    /**
+     * Pick a free node id uniformly at random
+     *
+     * @return Node id or -1 if every node id is claimed
+     */
+    private int pickFree(Set<Integer> claimed) {
+        if (claimed.size() >= maxNodes) {
+            return -1;
+        }
+        if (claimed.size() <= maxNodes / 2) {
+            //At least half the ids are free, so this takes two tries on average
+            while (true) {
+                final int candidate = secureRandom.nextInt(maxNodes);
+                if (!claimed.contains(candidate)) {
+                    return candidate;
                 }
-                log.info("Node will be set to node id {}", node);
+            }
+        }
+        //Mostly full, so walk the free ids instead. maxNodes is at most twice the claimed ids here.
+        final BitSet taken = new BitSet(maxNodes);
+        claimed.forEach(taken::set);
+        int remaining = secureRandom.nextInt(maxNodes - claimed.size());
+        int candidate = taken.nextClearBit(0);
+        while (remaining-- > 0) {
+            candidate = taken.nextClearBit(candidate + 1);
+        }
+        return candidate;
+    }
+
+    private boolean claim(int candidate) throws Exception {
+        try {
+            curatorFramework.create()
+                    .creatingParentContainersIfNeeded()
+                    .withMode(CreateMode.EPHEMERAL)
+                    .forPath(pathUtils.path(candidate));
+            return true;
+        } catch (KeeperException.NodeExistsException e) {
+            return false;
+        }
+    }
+
+    private boolean reclaim(int leased) {
+        try {
+            if (claim(leased)) {
                 return true;
-            });
-        } catch (RetryException e) {
-            log.error("Error creating node", e);
-        } catch (ExecutionException e) {
-            log.error("Execution exception while creating node", e);
+            }
+            log.info("Leased node {} is taken, will look for a free node", leased);
+        } catch (Exception e) {
+            log.warn("Could not reclaim leased node {}", leased, e);
         }
-        return node;
+        return false;
+    }
+
+    /**
+     * @return Node id of the lease or -1 if there is no usable lease
+     */
+    private int readLease() {
+        if (null == leaseFile) {
+            return -1;
+        }
+        try {
+            final String[] lease = new String(Files.readAllBytes(leaseFile), StandardCharsets.UTF_8).trim().split(",");
+            final int leased = pathUtils.nodeId(lease[0]);
+            final long leasedAt = lease.length > 1
+                                  ? Long.parseLong(lease[1])
+                                  : 0;
+            final long age = System.currentTimeMillis() - leasedAt;
+            if (leased < 0 || age > maxLeaseAge.toMillis()) {
+                log.info("Ignoring lease {} of age {} ms from {}", leased, age, leaseFile);
+                return -1;
+            }
+            return leased;
+        } catch (NoSuchFileException e) {
+            return -1;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not read node id lease from {}", leaseFile, e);
+            return -1;
+        }
+    }
+
+    /**
+     * Written to a temporary file and moved in place, so that a crash never leaves half a lease behind
+     */
+    private void writeLease() {
+        if (null == leaseFile) {
+            return;
+        }
+        try {
+            final Path absolute = leaseFile.toAbsolutePath();
+            final Path temporary = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+            Files.write(temporary, (node + "," + System.currentTimeMillis()).getBytes(StandardCharsets.UTF_8));
+            Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Could not write node id lease to {}", leaseFile, e);
+        }
+    }
+
+    private long backoff(long backoffMillis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(backoffMillis + secureRandom.nextInt((int) backoffMillis));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to claim a node id", e);
+        }
+        return Math.min(backoffMillis * 2, MAX_BACKOFF_MILLIS);
     }
 }
@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+/**
+ * Node id providers that can be picked from configuration
+ */
+public enum NodeIdSource {
+    /**
+     * Claim a node id in zookeeper, see {@link NodeIdManager}
+     */
+    ZOOKEEPER,
+    /**
+     * Node id set in configuration, see {@link StaticNodeIdProvider}
+     */
+    STATIC,
+    /**
+     * Node id read from an environment variable such as the hostname of a StatefulSet pod, see
+     * {@link EnvironmentNodeIdProvider}
+     */
+    ENVIRONMENT,
+    /**
+     * Node id derived from the address of the host, see {@link IpNodeIdProvider}
+     */
+    IP
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Date;
+import java.util.OptionalLong;
+
+/**
+ * Packs ids into time ordered longs and converts them to and from the string form.
+ * A numeric id is (millis since {@link #EPOCH}) * 10^7 + node * 10^3 + exponent, so its last seven decimal digits are
+ * the node and exponent digits of the string form. Positive longs cover about 29 years from the epoch.
+ * The prefix of a string id is not part of the numeric id and has to be passed back when decoding.
+ */
+public final class NumericIdCodec {
+    //2020-01-01T00:00:00Z
+    public static final long EPOCH = 1577836800000L;
+    private static final long NODE_MULTIPLIER = Constants.MAX_ID_PER_MS;
+    private static final long TIME_MULTIPLIER = NODE_MULTIPLIER * Constants.MAX_NUM_NODES;
+    private static final long MAX_TIME = EPOCH + Long.MAX_VALUE / TIME_MULTIPLIER;
+    private static final IdParser PARSER = new IdParser();
+
+    private NumericIdCodec() {}
+
+    public static long encode(long time, int node, int exponent) {
+        Preconditions.checkArgument(time >= EPOCH && time <= MAX_TIME,
+                                    "Time %s is outside the numeric id range", time);
+        Preconditions.checkArgument(node >= 0 && node < Constants.MAX_NUM_NODES, "Invalid node %s", node);
+        Preconditions.checkArgument(exponent >= 0 && exponent < Constants.MAX_ID_PER_MS,
+                                    "Invalid exponent %s", exponent);
+        return (time - EPOCH) * TIME_MULTIPLIER + node * NODE_MULTIPLIER + exponent;
+    }
+
+    public static long encode(Id id) {
+        return encode(id.getGeneratedDate().getTime(), id.getNode(), id.getExponent());
+    }
+
+    /**
+     * Convert a string id to its numeric form
+     *
+     * @param idString String id
+     * @return Numeric id if the string could be parsed
+     */
+    public static OptionalLong encode(String idString) {
+        return PARSER.parse(idString)
+                .map(id -> OptionalLong.of(encode(id)))
+                .orElse(OptionalLong.empty());
+    }
+
+    /**
+     * Convert a numeric id back to its string form.
+     * String ids carry local time, so a numeric id generated in the repeated hour of a DST change decodes to the
+     * same string as the one generated an hour earlier. Parsing that string returns the earlier time.
+     *
+     * @param prefix    Prefix the string id was generated with
+     * @param numericId Numeric id
+     * @return Id in the string form
+     */
+    public static Id decode(String prefix, long numericId) {
+        Preconditions.checkArgument(numericId >= 0, "Invalid numeric id %s", numericId);
+        final long time = time(numericId);
+        final int node = node(numericId);
+        final int exponent = exponent(numericId);
+        return new Id(new IdFormatter(node).format(prefix, time, exponent), new Date(time), node, exponent);
+    }
+
+    /**
+     * Smallest numeric id that can be generated at the given time, for range scans
+     *
+     * @param time Epoch millis
+     * @return Numeric id, inclusive
+     */
+    public static long lowerBound(long time) {
+        return encode(time, 0, 0);
+    }
+
+    /**
+     * Largest numeric id that can be generated at the given time, for range scans
+     *
+     * @param time Epoch millis
+     * @return Numeric id, inclusive
+     */
+    public static long upperBound(long time) {
+        return encode(time, Constants.MAX_NUM_NODES - 1, Constants.MAX_ID_PER_MS - 1);
+    }
+
+    public static long time(long numericId) {
+        return EPOCH + numericId / TIME_MULTIPLIER;
+    }
+
+    public static int node(long numericId) {
+        return (int) (numericId % TIME_MULTIPLIER / NODE_MULTIPLIER);
+    }
+
+    public static int exponent(long numericId) {
+        return (int) (numericId % NODE_MULTIPLIER);
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Parks the waiting thread in short intervals till the clock ticks. Does not burn a core while a burst waits out the
+ * rest of the tick, but wakes up up to one interval late.
+ */
+public class ParkingWaitStrategy implements WaitStrategy {
+    public static final long DEFAULT_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final long parkNanos;
+
+    public ParkingWaitStrategy() {
+        this(DEFAULT_PARK_NANOS);
+    }
+
+    public ParkingWaitStrategy(long parkNanos) {
+        Preconditions.checkArgument(parkNanos > 0, "Park interval must be positive");
+        this.parkNanos = parkNanos;
+    }
+
+    @Override
+    public long await(long exhausted, LongSupplier clock) {
+        long now = clock.getAsLong();
+        while (now <= exhausted) {
+            LockSupport.parkNanos(parkNanos);
+            now = clock.getAsLong();
+        }
+        return now;
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import io.appform.dropwizard.discovery.bundle.id.constraints.impl.KeyPartitioner;
+
+import java.util.Date;
+
+/**
+ * Partition of every exponent of one millisecond, for a given prefix and partitioner.
+ * Entries are computed on first use. Threads racing on an entry compute the same value, so the table needs no
+ * synchronization.
+ */
+class PartitionTable {
+    private final String prefix;
+    private final KeyPartitioner partitioner;
+    private final IdFormatter formatter;
+    private final int node;
+    private final long time;
+    //Partition + 1, zero till computed
+    private final int[] partitions;
+
+    PartitionTable(
+            String prefix, KeyPartitioner partitioner, IdFormatter formatter, int node, long time, int maxExponents) {
+        this.prefix = prefix;
+        this.partitioner = partitioner;
+        this.formatter = formatter;
+        this.node = node;
+        this.time = time;
+        this.partitions = new int[maxExponents];
+    }
+
+    boolean isFor(String prefix, KeyPartitioner partitioner, IdFormatter formatter, long time) {
+        return this.time == time
+                && this.partitioner == partitioner
+                && this.formatter == formatter
+                && this.prefix.equals(prefix);
+    }
+
+    int partition(int exponent) {
+        int value = partitions[exponent];
+        if (value == 0) {
+            value = partitioner.partition(id(exponent)) + 1;
+            partitions[exponent] = value;
+        }
+        return value - 1;
+    }
+
+    Id id(int exponent) {
+        return new Id(formatter.format(prefix, time, exponent), new Date(time), node, exponent);
+    }
+}
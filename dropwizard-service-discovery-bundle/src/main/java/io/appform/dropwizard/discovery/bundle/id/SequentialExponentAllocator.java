@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Allocator that hands out exponents from a per millisecond counter.
+ * The counter and the millisecond it belongs to are packed into a single word, so every allocation is one CAS and
+ * an exhausted millisecond is detected without probing. The counter is walked with a stride co-prime to the number
+ * of exponents, so consecutive ids do not carry consecutive exponents.
+ * With a tick longer than a millisecond, the counter is per tick instead and times of reserved slots are in ticks.
+ */
+public class SequentialExponentAllocator implements ExponentAllocator {
+    private static final double STRIDE_RATIO = 0.618;
+
+    private final int maxExponents;
+    private final int tickMillis;
+    private final WaitStrategy waitStrategy;
+    private final TimeSource timeSource;
+    private final int stride;
+    private final AtomicLong state = new AtomicLong(0);
+    private volatile IdGeneratorMetrics metrics = IdGeneratorMetrics.NOOP;
+
+    public SequentialExponentAllocator(int maxExponents) {
+        this(maxExponents, 1);
+    }
+
+    public SequentialExponentAllocator(int maxExponents, int tickMillis) {
+        this(maxExponents, tickMillis, new SpinThenYieldWaitStrategy());
+    }
+
+    public SequentialExponentAllocator(int maxExponents, int tickMillis, WaitStrategy waitStrategy) {
+        this(maxExponents, tickMillis, waitStrategy, TimeSource.SYSTEM);
+    }
+
+    public SequentialExponentAllocator(
+            int maxExponents, int tickMillis, WaitStrategy waitStrategy, TimeSource timeSource) {
+        Preconditions.checkArgument(maxExponents > 0 && maxExponents <= EXPONENT_MASK,
+                                    "Number of exponents must be between 1 and %s", EXPONENT_MASK);
+        Preconditions.checkArgument(tickMillis > 0, "Tick must be at least a millisecond");
+        this.maxExponents = maxExponents;
+        Preconditions.checkArgument(null != waitStrategy, "Provide a non null wait strategy");
+        Preconditions.checkArgument(null != timeSource, "Provide a non null time source");
+        this.tickMillis = tickMillis;
+        this.waitStrategy = waitStrategy;
+        this.timeSource = timeSource;
+        this.stride = stride(maxExponents);
+    }
+
+    @Override
+    public long allocate() {
+        final long reservation = reserve(1, true);
+        return ExponentAllocator.pack(ExponentAllocator.time(reservation),
+                                      exponentAt(ExponentAllocator.exponent(reservation)));
+    }
+
+    @Override
+    public int allocate(long[] slots, int offset, int count) {
+        final long reservation = reserve(count, true);
+        final long time = ExponentAllocator.time(reservation);
+        final int first = ExponentAllocator.exponent(reservation);
+        final int reserved = Math.min(count, maxExponents - first);
+        for (int i = 0; i < reserved; i++) {
+            slots[offset + i] = ExponentAllocator.pack(time, exponentAt(first + i));
+        }
+        return reserved;
+    }
+
+    /**
+     * Not supported. Exponents are handed out in counter order, so looking for one the filter accepts would use up
+     * every exponent it rejects, and starve other callers for the rest of the tick.
+     */
+    @Override
+    public long allocate(ExponentFilter filter) {
+        throw new UnsupportedOperationException(
+                "Sequential allocation can not search for exponents without using them up, use random allocation");
+    }
+
+    @Override
+    public long lastTick() {
+        return Math.max(ExponentAllocator.time(state.get()), now());
+    }
+
+    @Override
+    public void useMetrics(IdGeneratorMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Move the counter ahead by up to count positions
+     *
+     * @param wait Hand over to the wait strategy if the current tick is exhausted
+     * @return Tick and the first counter position reserved, packed as a slot. -1 if the current tick is exhausted
+     * and wait is not set.
+     */
+    private long reserve(int count, boolean wait) {
+        long now = now();
+        int probes = 0;
+        while (true) {
+            final long current = state.get();
+            final long lag = ExponentAllocator.time(current) - now;
+            if (lag > Constants.MAX_CLOCK_LAG_MS) {
+                //Our clock reading might just be stale, the clock stepping back is the only other explanation
+                final long latest = now();
+                if (latest != now) {
+                    now = latest;
+                    continue;
+                }
+            }
+            final long time;
+            final int index;
+            if (lag >= 0 && lag <= Constants.MAX_CLOCK_LAG_MS) {
+                time = now + lag;
+                index = ExponentAllocator.exponent(current);
+            }
+            else {
+                time = now;
+                index = 0;
+            }
+            if (index >= maxExponents) {
+                if (!wait) {
+                    return -1;
+                }
+                metrics.saturated();
+                final long waitStart = System.nanoTime();
+                //Might be ahead of the clock if the strategy borrows ticks
+                now = waitStrategy.await(time, this::now);
+                metrics.waited(System.nanoTime() - waitStart);
+                continue;
+            }
+            final int reserved = Math.min(count, maxExponents - index);
+            probes++;
+            if (state.compareAndSet(current, ExponentAllocator.pack(time, index + reserved))) {
+                metrics.allocationProbes(probes);
+                return ExponentAllocator.pack(time, index);
+            }
+            now = now();
+        }
+    }
+
+    private long now() {
+        return timeSource.currentTimeMillis() / tickMillis;
+    }
+
+    private int exponentAt(int index) {
+        return (int) ((long) index * stride % maxExponents);
+    }
+
+    private static int stride(int maxExponents) {
+        int stride = Math.max(1, (int) (maxExponents * STRIDE_RATIO));
+        while (gcd(stride, maxExponents) != 1) {
+            stride--;
+        }
+        return stride;
+    }
+
+    private static int gcd(int a, int b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import com.google.common.base.Preconditions;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Polls the clock in a tight loop for a while and then yields between polls.
+ * Lowest latency once the clock ticks, at the cost of a busy core for the spinning part.
+ */
+public class SpinThenYieldWaitStrategy implements WaitStrategy {
+    public static final int DEFAULT_SPINS = 100;
+
+    private final int spins;
+
+    public SpinThenYieldWaitStrategy() {
+        this(DEFAULT_SPINS);
+    }
+
+    public SpinThenYieldWaitStrategy(int spins) {
+        Preconditions.checkArgument(spins >= 0, "Number of spins can not be negative");
+        this.spins = spins;
+    }
+
+    @Override
+    public long await(long exhausted, LongSupplier clock) {
+        int polls = 0;
+        long now = clock.getAsLong();
+        while (now <= exhausted) {
+            if (++polls > spins) {
+                //Yield instead of spinning, so that a virtual thread does not hold on to its carrier
+                Thread.yield();
+            }
+            now = clock.getAsLong();
+        }
+        return now;
+    }
+}
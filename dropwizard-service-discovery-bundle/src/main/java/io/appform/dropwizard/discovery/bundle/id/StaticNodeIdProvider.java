@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Hands out a fixed node id. Uniqueness across processes is up to whoever assigns the ids.
+ */
+public class StaticNodeIdProvider implements NodeIdProvider {
+    private final int nodeId;
+
+    public StaticNodeIdProvider(int nodeId, IdLayout layout) {
+        layout.validate();
+        Preconditions.checkArgument(nodeId >= 0 && nodeId < layout.maxNodes(),
+                                    "Node %s does not fit in %s digits", nodeId, layout.getNodeDigits());
+        this.nodeId = nodeId;
+    }
+
+    @Override
+    public int nodeId() {
+        return nodeId;
+    }
+}
@@ -0,0 +1,337 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock free allocator that picks random exponents.
+ * The exponent space of a millisecond is split into stripes of 32 exponents. Each stripe is a single word holding
+ * the low 32 bits of the millisecond it is tracking and a bitmask of the exponents used in it. A slot is reserved
+ * with a single CAS on a randomly chosen stripe, so generating threads never block each other.
+ * With a tick longer than a millisecond, stripes track ticks instead and times of reserved slots are in ticks.
+ */
+public class StripedExponentAllocator implements ExponentAllocator {
+    private static final int STRIPE_WIDTH = Integer.SIZE;
+    //Stripes are placed a cache line apart so that threads working on different stripes do not contend. With many
+    //stripes, threads rarely pick neighbouring ones, so larger layouts are not padded to keep allocators small.
+    private static final int PADDING = 8;
+    private static final int MAX_PADDED_STRIPES = 64;
+    //Returned by the claim methods when the CAS on a stripe loses to another thread
+    private static final int CONTENDED = -2;
+
+    private final int tickMillis;
+    private final WaitStrategy waitStrategy;
+    private final TimeSource timeSource;
+    private final int numStripes;
+    private final int padding;
+    private final int[] initialMasks;
+    private final AtomicLongArray stripes;
+    private volatile IdGeneratorMetrics metrics = IdGeneratorMetrics.NOOP;
+
+    public StripedExponentAllocator(int maxExponents) {
+        this(maxExponents, 1);
+    }
+
+    public StripedExponentAllocator(int maxExponents, int tickMillis) {
+        this(maxExponents, tickMillis, new SpinThenYieldWaitStrategy());
+    }
+
+    public StripedExponentAllocator(int maxExponents, int tickMillis, WaitStrategy waitStrategy) {
+        this(maxExponents, tickMillis, waitStrategy, TimeSource.SYSTEM);
+    }
+
+    public StripedExponentAllocator(
+            int maxExponents, int tickMillis, WaitStrategy waitStrategy, TimeSource timeSource) {
+        Preconditions.checkArgument(maxExponents > 0 && maxExponents <= EXPONENT_MASK + 1,
+                                    "Number of exponents must be between 1 and %s", EXPONENT_MASK + 1);
+        Preconditions.checkArgument(tickMillis > 0, "Tick must be at least a millisecond");
+        Preconditions.checkArgument(null != waitStrategy, "Provide a non null wait strategy");
+        Preconditions.checkArgument(null != timeSource, "Provide a non null time source");
+        this.tickMillis = tickMillis;
+        this.waitStrategy = waitStrategy;
+        this.timeSource = timeSource;
+        this.numStripes = numStripes(maxExponents);
+        this.padding = padding(numStripes);
+        this.initialMasks = new int[numStripes];
+        this.stripes = new AtomicLongArray(numStripes * padding);
+        for (int i = 0; i < numStripes; i++) {
+            //Bits beyond the last valid exponent are marked as used upfront
+            final int usable = Math.min(STRIPE_WIDTH, maxExponents - i * STRIPE_WIDTH);
+            initialMasks[i] = usable == STRIPE_WIDTH ? 0 : -1 << usable;
+            stripes.set(i * padding, word(0, initialMasks[i]));
+        }
+    }
+
+    /**
+     * Memory taken by the stripes of an allocator
+     *
+     * @param maxExponents Number of exponents per tick
+     * @return Size in bytes
+     */
+    public static long sizeInBytes(int maxExponents) {
+        final int stripeCount = numStripes(maxExponents);
+        return (long) stripeCount * padding(stripeCount) * Long.BYTES;
+    }
+
+    @Override
+    public long allocate() {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        int probes = 0;
+        long now = now();
+        while (true) {
+            final int start = random.nextInt(numStripes);
+            for (int i = 0; i < numStripes; ) {
+                final int stripe = (start + i) % numStripes;
+                final long slot = claim(stripe, now, random);
+                probes++;
+                if (slot >= 0) {
+                    metrics.allocationProbes(probes);
+                    return slot;
+                }
+                if (slot != CONTENDED) {
+                    i++;
+                }
+            }
+            now = awaitNextTick(now);
+        }
+    }
+
+    @Override
+    public int allocate(long[] slots, int offset, int count) {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        int probes = 0;
+        long now = now();
+        while (true) {
+            final int start = random.nextInt(numStripes);
+            int reserved = 0;
+            for (int i = 0; i < numStripes && reserved < count; ) {
+                final int stripe = (start + i) % numStripes;
+                final int claimed = claimAll(stripe, now, slots, offset + reserved, count - reserved);
+                probes++;
+                if (claimed != CONTENDED) {
+                    reserved += claimed;
+                    i++;
+                }
+            }
+            if (reserved > 0) {
+                metrics.allocationProbes(probes);
+                return reserved;
+            }
+            now = awaitNextTick(now);
+        }
+    }
+
+    @Override
+    public long allocate(ExponentFilter filter) {
+        final long now = now();
+        final int start = ThreadLocalRandom.current().nextInt(numStripes);
+        int probes = 0;
+        for (int i = 0; i < numStripes; ) {
+            final int stripe = (start + i) % numStripes;
+            final long slot = claimMatching(stripe, now, filter);
+            probes++;
+            if (slot >= 0) {
+                metrics.allocationProbes(probes);
+                return slot;
+            }
+            if (slot != CONTENDED) {
+                i++;
+            }
+        }
+        metrics.allocationProbes(probes);
+        return -1;
+    }
+
+    /**
+     * Stripes only keep the lower bits of their tick, so ticks are read as lags from the clock, the same way as when
+     * allocating
+     */
+    @Override
+    public long lastTick() {
+        final long now = now();
+        int lead = 0;
+        for (int i = 0; i < numStripes; i++) {
+            final int lag = stamp(stripes.get(i * padding)) - (int) now;
+            if (lag > lead && lag <= Constants.MAX_CLOCK_LAG_MS) {
+                lead = lag;
+            }
+        }
+        return now + lead;
+    }
+
+    @Override
+    public void useMetrics(IdGeneratorMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    private long claim(int stripe, long clock, ThreadLocalRandom random) {
+        final int index = stripe * padding;
+        long now = clock;
+        while (true) {
+            final long current = stripes.get(index);
+            final long latest = refreshIfStale(current, now);
+            if (latest != now) {
+                now = latest;
+                continue;
+            }
+            final long time = effectiveTime(current, now);
+            final int used = effectiveUsage(stripe, current, time);
+            final int free = ~used;
+            if (free == 0) {
+                return -1;
+            }
+            final int offset = random.nextInt(STRIPE_WIDTH);
+            final int bit = (Integer.numberOfTrailingZeros(Integer.rotateRight(free, offset)) + offset)
+                    & (STRIPE_WIDTH - 1);
+            return stripes.compareAndSet(index, current, word(time, used | (1 << bit)))
+                   ? ExponentAllocator.pack(time, stripe * STRIPE_WIDTH + bit)
+                   : CONTENDED;
+        }
+    }
+
+    private int claimAll(int stripe, long clock, long[] slots, int offset, int count) {
+        final int index = stripe * padding;
+        long now = clock;
+        while (true) {
+            final long current = stripes.get(index);
+            final long latest = refreshIfStale(current, now);
+            if (latest != now) {
+                now = latest;
+                continue;
+            }
+            final long time = effectiveTime(current, now);
+            final int used = effectiveUsage(stripe, current, time);
+            int free = ~used;
+            int claimed = 0;
+            int numClaimed = 0;
+            while (free != 0 && numClaimed < count) {
+                claimed |= free & -free;
+                free &= free - 1;
+                numClaimed++;
+            }
+            if (numClaimed == 0) {
+                return 0;
+            }
+            if (!stripes.compareAndSet(index, current, word(time, used | claimed))) {
+                return CONTENDED;
+            }
+            int position = offset;
+            while (claimed != 0) {
+                slots[position++] = ExponentAllocator.pack(
+                        time, stripe * STRIPE_WIDTH + Integer.numberOfTrailingZeros(claimed));
+                claimed &= claimed - 1;
+            }
+            return numClaimed;
+        }
+    }
+
+    private long claimMatching(int stripe, long clock, ExponentFilter filter) {
+        final int index = stripe * padding;
+        long now = clock;
+        while (true) {
+            final long current = stripes.get(index);
+            final long latest = refreshIfStale(current, now);
+            if (latest != now) {
+                now = latest;
+                continue;
+            }
+            final long time = effectiveTime(current, now);
+            final int used = effectiveUsage(stripe, current, time);
+            int free = ~used;
+            int bit = -1;
+            while (free != 0 && bit < 0) {
+                final int candidate = Integer.numberOfTrailingZeros(free);
+                if (filter.accept(time, stripe * STRIPE_WIDTH + candidate)) {
+                    bit = candidate;
+                }
+                free &= free - 1;
+            }
+            if (bit < 0) {
+                return -1;
+            }
+            return stripes.compareAndSet(index, current, word(time, used | (1 << bit)))
+                   ? ExponentAllocator.pack(time, stripe * STRIPE_WIDTH + bit)
+                   : CONTENDED;
+        }
+    }
+
+    /**
+     * A stripe far ahead of our clock reading means that the reading is stale or that the clock has been stepped
+     * back. Read the clock again to tell the two apart.
+     */
+    private long refreshIfStale(long current, long now) {
+        final int lag = stamp(current) - (int) now;
+        return lag > Constants.MAX_CLOCK_LAG_MS
+               ? now()
+               : now;
+    }
+
+    private static long effectiveTime(long current, long now) {
+        final int lag = stamp(current) - (int) now;
+        return lag >= 0 && lag <= Constants.MAX_CLOCK_LAG_MS
+               ? now + lag
+               : now;
+    }
+
+    private int effectiveUsage(int stripe, long current, long time) {
+        return stamp(current) == (int) time
+               ? used(current)
+               : initialMasks[stripe];
+    }
+
+    private long now() {
+        return timeSource.currentTimeMillis() / tickMillis;
+    }
+
+    /**
+     * @return Tick to allocate from next, the wait strategy might move ahead of the clock
+     */
+    private long awaitNextTick(long now) {
+        metrics.saturated();
+        final long waitStart = System.nanoTime();
+        final long next = waitStrategy.await(now, this::now);
+        metrics.waited(System.nanoTime() - waitStart);
+        return next;
+    }
+
+    private static long word(long time, int used) {
+        return ((long) (int) time << 32) | (used & 0xFFFFFFFFL);
+    }
+
+    private static int stamp(long word) {
+        return (int) (word >>> 32);
+    }
+
+    private static int used(long word) {
+        return (int) word;
+    }
+
+    private static int numStripes(int maxExponents) {
+        return (maxExponents + STRIPE_WIDTH - 1) / STRIPE_WIDTH;
+    }
+
+    private static int padding(int numStripes) {
+        return numStripes <= MAX_PADDED_STRIPES
+               ? PADDING
+               : 1;
+    }
+}
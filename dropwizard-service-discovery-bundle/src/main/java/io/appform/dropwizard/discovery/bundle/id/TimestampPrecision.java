@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import lombok.Getter;
+
+/**
+ * Granularity of the timestamp part of an id. Coarser precisions write fewer sub second digits, and the per tick id
+ * budget of the layout applies to the whole tick.
+ */
+public enum TimestampPrecision {
+    MILLISECONDS(3, 1),
+    CENTISECONDS(2, 10),
+    DECISECONDS(1, 100),
+    SECONDS(0, 1000);
+
+    /**
+     * Number of sub second digits written after yyMMddHHmmss
+     */
+    @Getter
+    private final int fractionDigits;
+    @Getter
+    private final int tickMillis;
+
+    TimestampPrecision(int fractionDigits, int tickMillis) {
+        this.fractionDigits = fractionDigits;
+        this.tickMillis = tickMillis;
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+/**
+ * Wait strategies that can be picked from configuration
+ */
+public enum WaitMode {
+    /**
+     * See {@link SpinThenYieldWaitStrategy}
+     */
+    SPIN_THEN_YIELD {
+        @Override
+        public WaitStrategy strategy(int maxBorrowedTicks) {
+            return new SpinThenYieldWaitStrategy();
+        }
+    },
+    /**
+     * See {@link ParkingWaitStrategy}
+     */
+    PARK {
+        @Override
+        public WaitStrategy strategy(int maxBorrowedTicks) {
+            return new ParkingWaitStrategy();
+        }
+    },
+    /**
+     * See {@link BorrowingWaitStrategy}. Parks once the bound on borrowed ticks is reached.
+     */
+    BORROW {
+        @Override
+        public WaitStrategy strategy(int maxBorrowedTicks) {
+            return new BorrowingWaitStrategy(leadTicks(maxBorrowedTicks), new ParkingWaitStrategy());
+        }
+
+        @Override
+        public int leadTicks(int maxBorrowedTicks) {
+            return maxBorrowedTicks == 0
+                   ? BorrowingWaitStrategy.DEFAULT_MAX_BORROWED_TICKS
+                   : maxBorrowedTicks;
+        }
+    };
+
+    /**
+     * @param maxBorrowedTicks Bound for {@link #BORROW}, ignored otherwise. Zero picks the default.
+     */
+    public abstract WaitStrategy strategy(int maxBorrowedTicks);
+
+    /**
+     * How many ticks ahead of the clock ids can be timestamped with this mode
+     *
+     * @param maxBorrowedTicks Bound for {@link #BORROW}, ignored otherwise. Zero picks the default.
+     */
+    public int leadTicks(int maxBorrowedTicks) {
+        return 0;
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Decides what an allocator does when every exponent of the current tick has been handed out
+ */
+@FunctionalInterface
+public interface WaitStrategy {
+
+    /**
+     * @param exhausted Tick that ran out of exponents
+     * @param clock     Reads the current tick
+     * @return Tick to allocate from next. Later than exhausted, and no more than {@value Constants#MAX_CLOCK_LAG_MS}
+     * ticks ahead of the clock.
+     */
+    long await(long exhausted, LongSupplier clock);
+}
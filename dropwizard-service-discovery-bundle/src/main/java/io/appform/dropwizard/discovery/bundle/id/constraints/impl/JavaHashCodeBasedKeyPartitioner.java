@@ -32,8 +32,8 @@ public class JavaHashCodeBasedKeyPartitioner implements KeyPartitioner {
 
     @Override
     public int partition(Id id) {
-        int hashCode = id.getId().hashCode();
-        hashCode *= hashCode < 0 ? -1 : 1;
-        return hashCode % maxPartitions;
+        //Remainder is taken before the sign is dropped, as Integer.MIN_VALUE has no positive counterpart
+        final int hashCode = id.getId().hashCode() % maxPartitions;
+        return hashCode < 0 ? -hashCode : hashCode;
     }
 }
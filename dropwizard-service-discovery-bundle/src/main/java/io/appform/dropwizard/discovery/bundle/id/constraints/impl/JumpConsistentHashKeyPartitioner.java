@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id.constraints.impl;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Partitions ids with jump consistent hash over the 32 bit murmur3 of the id characters.
+ * When the partition count grows from n to n + 1, only about 1/(n + 1) of the ids move, and all of them to the new
+ * partition.
+ */
+public class JumpConsistentHashKeyPartitioner extends RawIdKeyPartitioner {
+
+    private final int maxPartitions;
+
+    public JumpConsistentHashKeyPartitioner(int maxPartitions) {
+        Preconditions.checkArgument(maxPartitions > 0, "Provide a non-negative and non-zero partition count");
+        this.maxPartitions = maxPartitions;
+    }
+
+    @Override
+    public int partition(CharSequence id) {
+        long key = Murmur3Hashing.hash32(id) & 0xFFFFFFFFL;
+        long bucket = -1;
+        long next = 0;
+        while (next < maxPartitions) {
+            bucket = next;
+            key = key * 2862933555777941757L + 1;
+            next = (long) ((bucket + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) bucket;
+    }
+}
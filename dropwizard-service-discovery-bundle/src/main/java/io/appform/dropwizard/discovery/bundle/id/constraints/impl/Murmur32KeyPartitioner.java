@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id.constraints.impl;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Partitions ids by 32 bit murmur3 of the id characters.
+ * Assignments differ from {@link MurmurBasedKeyPartitioner}, which should be kept for data already partitioned by it.
+ */
+public class Murmur32KeyPartitioner extends RawIdKeyPartitioner {
+
+    private final int maxPartitions;
+
+    public Murmur32KeyPartitioner(int maxPartitions) {
+        Preconditions.checkArgument(maxPartitions > 0, "Provide a non-negative and non-zero partition count");
+        this.maxPartitions = maxPartitions;
+    }
+
+    @Override
+    public int partition(CharSequence id) {
+        return Integer.remainderUnsigned(Murmur3Hashing.hash32(id), maxPartitions);
+    }
+}
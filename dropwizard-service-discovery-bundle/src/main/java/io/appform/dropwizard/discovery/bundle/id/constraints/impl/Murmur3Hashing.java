@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id.constraints.impl;
+
+/**
+ * 32 bit murmur3 over the UTF-8 bytes of a char sequence.
+ * Bytes are encoded and mixed on the fly, so no intermediate strings or byte arrays are created. Results are the same
+ * as those of murmur3_32 on the UTF-8 encoded bytes with a zero seed.
+ */
+public final class Murmur3Hashing {
+    private static final int C1 = 0xcc9e2d51;
+    private static final int C2 = 0x1b873593;
+
+    private Murmur3Hashing() {}
+
+    public static int hash32(CharSequence value) {
+        int hash = 0;
+        long buffer = 0;
+        int bufferedBits = 0;
+        int length = 0;
+        final int numChars = value.length();
+        for (int i = 0; i < numChars; i++) {
+            final char ch = value.charAt(i);
+            if (ch < 0x80) {
+                buffer |= (long) ch << bufferedBits;
+                bufferedBits += 8;
+            }
+            else if (ch < 0x800) {
+                buffer |= (long) (0xC0 | (ch >>> 6)) << bufferedBits
+                        | (long) (0x80 | (ch & 0x3F)) << (bufferedBits + 8);
+                bufferedBits += 16;
+            }
+            else if (!Character.isSurrogate(ch)) {
+                buffer |= (long) (0xE0 | (ch >>> 12)) << bufferedBits
+                        | (long) (0x80 | ((ch >>> 6) & 0x3F)) << (bufferedBits + 8)
+                        | (long) (0x80 | (ch & 0x3F)) << (bufferedBits + 16);
+                bufferedBits += 24;
+            }
+            else if (Character.isHighSurrogate(ch)
+                    && i + 1 < numChars
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                final int codePoint = Character.toCodePoint(ch, value.charAt(++i));
+                buffer |= (long) (0xF0 | (codePoint >>> 18)) << bufferedBits
+                        | (long) (0x80 | ((codePoint >>> 12) & 0x3F)) << (bufferedBits + 8)
+                        | (long) (0x80 | ((codePoint >>> 6) & 0x3F)) << (bufferedBits + 16)
+                        | (long) (0x80 | (codePoint & 0x3F)) << (bufferedBits + 24);
+                bufferedBits += 32;
+            }
+            else {
+                //Unpaired surrogates are encoded as '?', same as String.getBytes()
+                buffer |= (long) '?' << bufferedBits;
+                bufferedBits += 8;
+            }
+            if (bufferedBits >= 32) {
+                hash = mixHash(hash, mixBlock((int) buffer));
+                buffer >>>= 32;
+                bufferedBits -= 32;
+                length += 4;
+            }
+        }
+        if (bufferedBits > 0) {
+            hash ^= mixBlock((int) buffer);
+            length += bufferedBits / 8;
+        }
+        return finalMix(hash ^ length);
+    }
+
+    private static int mixBlock(int block) {
+        return Integer.rotateLeft(block * C1, 15) * C2;
+    }
+
+    private static int mixHash(int hash, int block) {
+        return Integer.rotateLeft(hash ^ block, 13) * 5 + 0xe6546b64;
+    }
+
+    private static int finalMix(int hash) {
+        int mixed = hash;
+        mixed ^= mixed >>> 16;
+        mixed *= 0x85ebca6b;
+        mixed ^= mixed >>> 13;
+        mixed *= 0xc2b2ae35;
+        mixed ^= mixed >>> 16;
+        return mixed;
+    }
+}
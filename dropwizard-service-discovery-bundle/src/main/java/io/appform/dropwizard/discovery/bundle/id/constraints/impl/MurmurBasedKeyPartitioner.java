@@ -23,7 +23,9 @@ import io.appform.dropwizard.discovery.bundle.id.Id;
 import java.nio.charset.StandardCharsets;
 
 /**
- *
+ * Partitions ids by murmur3_128 of {@link Id#toString()}.
+ * Kept as is for compatibility with existing partition assignments. Use one of the {@link RawIdKeyPartitioner}s for
+ * new data, they are a lot cheaper.
  */
 public class MurmurBasedKeyPartitioner implements KeyPartitioner {
 
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id.constraints.impl;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Partitions ids by masking the low bits of the 32 bit murmur3 of the id characters.
+ * Partition count needs to be a power of two.
+ */
+public class PowerOfTwoKeyPartitioner extends RawIdKeyPartitioner {
+
+    private final int mask;
+
+    public PowerOfTwoKeyPartitioner(int maxPartitions) {
+        Preconditions.checkArgument(maxPartitions > 0 && Integer.bitCount(maxPartitions) == 1,
+                                    "Partition count must be a power of two");
+        this.mask = maxPartitions - 1;
+    }
+
+    @Override
+    public int partition(CharSequence id) {
+        return Murmur3Hashing.hash32(id) & mask;
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id.constraints.impl;
+
+import io.appform.dropwizard.discovery.bundle.id.Id;
+
+/**
+ * Base for partitioners that look only at the characters of the id.
+ * Partitions depend on the id string alone, and not on the generation date, node and exponent carried in {@link Id}.
+ */
+public abstract class RawIdKeyPartitioner implements KeyPartitioner {
+
+    @Override
+    public int partition(Id id) {
+        return partition(id.getId());
+    }
+
+    public abstract int partition(CharSequence id);
+}
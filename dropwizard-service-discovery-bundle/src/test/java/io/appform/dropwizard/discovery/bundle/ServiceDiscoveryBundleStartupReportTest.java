@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.health.HealthCheckRegistry;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.dropwizard.Configuration;
+import io.dropwizard.jersey.DropwizardResourceConfig;
+import io.dropwizard.jersey.setup.JerseyEnvironment;
+import io.dropwizard.lifecycle.setup.LifecycleEnvironment;
+import io.dropwizard.servlets.tasks.Task;
+import io.dropwizard.setup.AdminEnvironment;
+import io.dropwizard.setup.Bootstrap;
+import io.dropwizard.setup.Environment;
+import org.apache.curator.test.TestingServer;
+import org.eclipse.jetty.util.component.LifeCycle;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.*;
+
+/**
+ * Startup phases are timed and reported through the startup report task
+ */
+public class ServiceDiscoveryBundleStartupReportTest {
+
+    private final HealthCheckRegistry healthChecks = mock(HealthCheckRegistry.class);
+    private final JerseyEnvironment jerseyEnvironment = mock(JerseyEnvironment.class);
+    private final MetricRegistry metricRegistry = new MetricRegistry();
+    private final LifecycleEnvironment lifecycleEnvironment = new LifecycleEnvironment(metricRegistry);
+    private final Environment environment = mock(Environment.class);
+    private final AdminEnvironment adminEnvironment = mock(AdminEnvironment.class);
+    private final Bootstrap<?> bootstrap = mock(Bootstrap.class);
+    private final Configuration configuration = mock(Configuration.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ServiceDiscoveryBundle<Configuration> bundle = new ServiceDiscoveryBundle<Configuration>() {
+        @Override
+        protected ServiceDiscoveryConfiguration getRangerConfiguration(Configuration configuration) {
+            return serviceDiscoveryConfiguration;
+        }
+
+        @Override
+        protected String getServiceName(Configuration configuration) {
+            return "TestService";
+        }
+    };
+
+    private ServiceDiscoveryConfiguration serviceDiscoveryConfiguration;
+    private TestingServer testingServer;
+
+    @Before
+    public void setup() throws Exception {
+        when(jerseyEnvironment.getResourceConfig()).thenReturn(new DropwizardResourceConfig());
+        when(environment.jersey()).thenReturn(jerseyEnvironment);
+        when(environment.lifecycle()).thenReturn(lifecycleEnvironment);
+        when(environment.healthChecks()).thenReturn(healthChecks);
+        when(environment.metrics()).thenReturn(metricRegistry);
+        when(environment.getObjectMapper()).thenReturn(objectMapper);
+        when(environment.admin()).thenReturn(adminEnvironment);
+
+        testingServer = new TestingServer();
+
+        serviceDiscoveryConfiguration = ServiceDiscoveryConfiguration.builder()
+                .zookeeper(testingServer.getConnectString())
+                .namespace("test")
+                .environment("testing")
+                .connectionRetryIntervalMillis(5000)
+                .publishedHost("TestHost")
+                .publishedPort(8021)
+                .initialRotationStatus(true)
+                .build();
+        bundle.initialize(bootstrap);
+        bundle.run(configuration, environment);
+        for (LifeCycle lifeCycle : lifecycleEnvironment.getManagedObjects()) {
+            lifeCycle.start();
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        for (LifeCycle lifeCycle : lifecycleEnvironment.getManagedObjects()) {
+            lifeCycle.stop();
+        }
+        testingServer.close();
+    }
+
+    @Test
+    public void testStartupReport() throws Exception {
+        final ArgumentCaptor<Task> tasks = ArgumentCaptor.forClass(Task.class);
+        verify(adminEnvironment, atLeastOnce()).addTask(tasks.capture());
+        final Task reportTask = tasks.getAllValues()
+                .stream()
+                .filter(task -> task.getName().equals("ranger-startup-report"))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("Startup report task not registered"));
+
+        final StringWriter output = new StringWriter();
+        reportTask.execute(Collections.emptyMap(), new PrintWriter(output));
+        final Map<String, Long> report = objectMapper.readValue(output.toString(),
+                                                                new TypeReference<Map<String, Long>>() {
+                                                                });
+        for (String phase : new String[]{"curator-build", "service-provider-build", "discovery-client-build",
+                "curator", "zookeeper-connect", "service-provider", "discovery-client", "node-id", "clock",
+                "id-generator", "total"}) {
+            assertTrue(phase + " missing from " + report, report.containsKey(phase));
+            assertTrue(report.get(phase) >= 0);
+            assertTrue(phase + " has no timer", metricRegistry.getTimers()
+                    .containsKey(MetricRegistry.name(ServiceDiscoveryBundle.class, "startup", phase)));
+        }
+        assertTrue(report.get("total") >= report.get("node-id"));
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.health.HealthCheckRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.dropwizard.Configuration;
+import io.dropwizard.jersey.DropwizardResourceConfig;
+import io.dropwizard.jersey.setup.JerseyEnvironment;
+import io.dropwizard.lifecycle.setup.LifecycleEnvironment;
+import io.dropwizard.setup.AdminEnvironment;
+import io.dropwizard.setup.Bootstrap;
+import io.dropwizard.setup.Environment;
+import org.apache.curator.framework.imps.CuratorFrameworkState;
+import org.eclipse.jetty.util.component.LifeCycle;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Startup gives up on an unreachable zookeeper once the startup timeout passes
+ */
+public class ServiceDiscoveryBundleStartupTimeoutTest {
+
+    private final HealthCheckRegistry healthChecks = mock(HealthCheckRegistry.class);
+    private final JerseyEnvironment jerseyEnvironment = mock(JerseyEnvironment.class);
+    private final MetricRegistry metricRegistry = new MetricRegistry();
+    private final LifecycleEnvironment lifecycleEnvironment = new LifecycleEnvironment(metricRegistry);
+    private final Environment environment = mock(Environment.class);
+    private final Bootstrap<?> bootstrap = mock(Bootstrap.class);
+    private final Configuration configuration = mock(Configuration.class);
+
+    private final ServiceDiscoveryBundle<Configuration> bundle = new ServiceDiscoveryBundle<Configuration>() {
+        @Override
+        protected ServiceDiscoveryConfiguration getRangerConfiguration(Configuration configuration) {
+            return serviceDiscoveryConfiguration;
+        }
+
+        @Override
+        protected String getServiceName(Configuration configuration) {
+            return "TestService";
+        }
+    };
+
+    private ServiceDiscoveryConfiguration serviceDiscoveryConfiguration;
+
+    @Before
+    public void setup() throws Exception {
+        when(jerseyEnvironment.getResourceConfig()).thenReturn(new DropwizardResourceConfig());
+        when(environment.jersey()).thenReturn(jerseyEnvironment);
+        when(environment.lifecycle()).thenReturn(lifecycleEnvironment);
+        when(environment.healthChecks()).thenReturn(healthChecks);
+        when(environment.metrics()).thenReturn(metricRegistry);
+        when(environment.getObjectMapper()).thenReturn(new ObjectMapper());
+        AdminEnvironment adminEnvironment = mock(AdminEnvironment.class);
+        doNothing().when(adminEnvironment).addTask(any());
+        when(environment.admin()).thenReturn(adminEnvironment);
+
+        //Nothing listens here, so curator never connects
+        serviceDiscoveryConfiguration = ServiceDiscoveryConfiguration.builder()
+                .zookeeper("localhost:2")
+                .namespace("test")
+                .environment("testing")
+                .connectionRetryIntervalMillis(1000)
+                .publishedHost("TestHost")
+                .publishedPort(8021)
+                .startupTimeoutMillis(2000)
+                .build();
+        bundle.initialize(bootstrap);
+        bundle.run(configuration, environment);
+    }
+
+    @Test
+    public void testStartupFailsAfterTimeout() throws Exception {
+        final long start = System.currentTimeMillis();
+        try {
+            for (LifeCycle lifeCycle : lifecycleEnvironment.getManagedObjects()) {
+                lifeCycle.start();
+            }
+            fail("Startup should have timed out");
+        }
+        catch (IllegalStateException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("did not start within 2000 ms"));
+            assertTrue(e.getMessage(), e.getMessage().contains("node-id"));
+        }
+        assertTrue(System.currentTimeMillis() - start < 30_000);
+        assertTrue(metricRegistry.getTimers()
+                           .containsKey(MetricRegistry.name(ServiceDiscoveryBundle.class, "startup", "curator")));
+        assertTrue(metricRegistry.getTimers()
+                           .containsKey(MetricRegistry.name(ServiceDiscoveryBundle.class, "startup", "total")));
+        //Nothing is left running after the failure
+        assertEquals(CuratorFrameworkState.STOPPED, bundle.getCurator().getState());
+        assertNull(bundle.getIdGenerator());
+        for (LifeCycle lifeCycle : lifecycleEnvironment.getManagedObjects()) {
+            try {
+                lifeCycle.stop();
+            }
+            catch (Exception e) {
+                //Parts that never started may not stop cleanly
+            }
+        }
+    }
+}
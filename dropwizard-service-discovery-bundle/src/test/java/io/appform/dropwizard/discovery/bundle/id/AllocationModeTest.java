@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Correctness of the {@link AllocationMode}s. Throughput is compared in AllocationModeBenchmark in the benchmarks
+ * module.
+ */
+public class AllocationModeTest {
+    private static final int NUM_THREADS = 8;
+    private static final int SLOTS_PER_THREAD = 2 * Constants.MAX_ID_PER_MS;
+
+    @Test
+    public void testRandomModeUniquenessUnderContention() throws Exception {
+        testUniquenessUnderContention(AllocationMode.RANDOM);
+    }
+
+    @Test
+    public void testSequentialModeUniquenessUnderContention() throws Exception {
+        testUniquenessUnderContention(AllocationMode.SEQUENTIAL);
+    }
+
+    @Test
+    public void testSequentialModeUniqueness() {
+        final ExponentAllocator allocator = AllocationMode.SEQUENTIAL.allocator(Constants.MAX_ID_PER_MS);
+        final Set<Long> slots = ConcurrentHashMap.newKeySet();
+        final Map<Long, Integer> perMs = new ConcurrentHashMap<>();
+        for (int i = 0; i < 5 * Constants.MAX_ID_PER_MS; i++) {
+            final long slot = allocator.allocate();
+            Assert.assertTrue(ExponentAllocator.exponent(slot) < Constants.MAX_ID_PER_MS);
+            Assert.assertTrue(slots.add(slot));
+            perMs.merge(ExponentAllocator.time(slot), 1, Integer::sum);
+        }
+        perMs.values().forEach(count -> Assert.assertTrue(count <= Constants.MAX_ID_PER_MS));
+    }
+
+    @Test
+    public void testSequentialModeBatchAllocation() {
+        final ExponentAllocator allocator = AllocationMode.SEQUENTIAL.allocator(Constants.MAX_ID_PER_MS);
+        final long[] slots = new long[5 * Constants.MAX_ID_PER_MS];
+        int reserved = 0;
+        while (reserved < slots.length) {
+            reserved += allocator.allocate(slots, reserved, slots.length - reserved);
+        }
+        Assert.assertEquals(slots.length, Arrays.stream(slots).distinct().count());
+    }
+
+    @Test
+    public void testLastTickCoversAllocatedSlots() {
+        for (AllocationMode mode : AllocationMode.values()) {
+            final ExponentAllocator allocator = mode.allocator(Constants.MAX_ID_PER_MS);
+            long last = 0;
+            for (int i = 0; i < 3 * Constants.MAX_ID_PER_MS; i++) {
+                last = Math.max(last, ExponentAllocator.time(allocator.allocate()));
+            }
+            Assert.assertTrue(mode.name(), allocator.lastTick() >= last);
+        }
+    }
+
+    private void testUniquenessUnderContention(AllocationMode mode) throws Exception {
+        final ExponentAllocator allocator = mode.allocator(Constants.MAX_ID_PER_MS);
+        final Set<Long> slots = ConcurrentHashMap.newKeySet();
+        final ExecutorService executorService = Executors.newFixedThreadPool(NUM_THREADS);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < NUM_THREADS; i++) {
+                futures.add(executorService.submit(() -> {
+                    for (int j = 0; j < SLOTS_PER_THREAD; j++) {
+                        final long slot = allocator.allocate();
+                        Assert.assertTrue(ExponentAllocator.exponent(slot) < Constants.MAX_ID_PER_MS);
+                        Assert.assertTrue(slots.add(slot));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        finally {
+            executorService.shutdownNow();
+        }
+        Assert.assertEquals(NUM_THREADS * SLOTS_PER_THREAD, slots.size());
+    }
+}
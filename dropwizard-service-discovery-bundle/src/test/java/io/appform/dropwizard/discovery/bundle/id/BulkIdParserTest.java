@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Test for {@link BulkIdParser}
+ */
+public class BulkIdParserTest {
+    private final IdParser parser = new IdParser();
+
+    @Test
+    public void testListIntoArrays() {
+        final List<String> ids = ids(50_000);
+        final BulkIdParser bulkParser = BulkIdParser.builder()
+                .splitThreshold(1000)
+                .build();
+        final long[] times = new long[ids.size()];
+        final int[] nodes = new int[ids.size()];
+        final int[] exponents = new int[ids.size()];
+        final int parsed = bulkParser.parse(ids, times, nodes, exponents);
+        Assert.assertEquals(ids.stream().filter(id -> parser.parse(id).isPresent()).count(), parsed);
+        for (int i = 0; i < ids.size(); i++) {
+            assertSameAsParse(ids.get(i), times[i], nodes[i], exponents[i]);
+        }
+    }
+
+    @Test
+    public void testListVisitor() {
+        final List<String> ids = ids(20_000);
+        final AtomicLongArray times = new AtomicLongArray(ids.size());
+        final BulkIdParser bulkParser = BulkIdParser.builder()
+                .pool(new ForkJoinPool(4))
+                .splitThreshold(100)
+                .build();
+        bulkParser.parse(ids, (index, time, node, exponent) -> {
+            assertSameAsParse(ids.get((int) index), time, node, exponent);
+            times.set((int) index, time);
+        });
+        for (int i = 0; i < ids.size(); i++) {
+            Assert.assertEquals(parser.parse(ids.get(i)).map(id -> id.getGeneratedDate().getTime())
+                                        .orElse(IdParser.INVALID_TIME).longValue(), times.get(i));
+        }
+    }
+
+    @Test
+    public void testBuffer() {
+        final List<String> ids = ids(30_000);
+        final byte[] text = String.join("\r\n", ids).getBytes(StandardCharsets.US_ASCII);
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(text.length + 3);
+        buffer.put((byte) 'X').put(text).put((byte) '\n').put((byte) 'Y');
+        buffer.flip();
+        buffer.position(1).limit(buffer.limit() - 1);
+        Assert.assertEquals(ids.size(), BulkIdParser.countLines(buffer));
+
+        final int lines = BulkIdParser.countLines(buffer);
+        final long[] times = new long[lines];
+        final int[] nodes = new int[lines];
+        final int[] exponents = new int[lines];
+        BulkIdParser.builder().splitThreshold(500).build().parse(buffer, times, nodes, exponents);
+        for (int i = 0; i < ids.size(); i++) {
+            assertSameAsParse(ids.get(i), times[i], nodes[i], exponents[i]);
+        }
+        Assert.assertEquals(1, buffer.position());
+    }
+
+    @Test
+    public void testBufferWithoutTrailingNewline() {
+        final List<String> ids = ids(10);
+        final ByteBuffer buffer = ByteBuffer.wrap(String.join("\n", ids).getBytes(StandardCharsets.US_ASCII));
+        Assert.assertEquals(ids, BulkIdParser.lines(buffer));
+        final AtomicLong visited = new AtomicLong();
+        new BulkIdParser().parse(buffer, (index, time, node, exponent) -> {
+            assertSameAsParse(ids.get((int) index), time, node, exponent);
+            visited.incrementAndGet();
+        });
+        Assert.assertEquals(ids.size(), visited.get());
+        Assert.assertEquals(0, BulkIdParser.countLines(ByteBuffer.allocate(0)));
+    }
+
+    @Test
+    public void testBufferWithTrailingNewline() {
+        final List<String> ids = ids(10);
+        for (String terminator : Arrays.asList("\n", "\r\n")) {
+            final ByteBuffer buffer = ByteBuffer.wrap((String.join(terminator, ids) + terminator)
+                                                              .getBytes(StandardCharsets.US_ASCII));
+            Assert.assertEquals(ids.size(), BulkIdParser.countLines(buffer));
+            Assert.assertEquals(ids, BulkIdParser.lines(buffer));
+            final long[] times = new long[ids.size()];
+            final int[] nodes = new int[ids.size()];
+            final int[] exponents = new int[ids.size()];
+            Assert.assertEquals(ids.size(), new BulkIdParser().parse(buffer, times, nodes, exponents));
+            for (int i = 0; i < ids.size(); i++) {
+                assertSameAsParse(ids.get(i), times[i], nodes[i], exponents[i]);
+            }
+        }
+    }
+
+    @Test
+    public void testStream() throws IOException {
+        final List<String> ids = ids(40_000);
+        //Longer than a read chunk, to carry it over reads and grow the chunk
+        final char[] longLine = new char[200_000];
+        Arrays.fill(longLine, 'A');
+        ids.add(100, new String(longLine) + ids.get(0));
+        final byte[] text = String.join("\n", ids).getBytes(StandardCharsets.US_ASCII);
+        final List<Long> times = new ArrayList<>();
+        final long read = new BulkIdParser().parse(new TrickleInputStream(text), (index, time, node, exponent) -> {
+            Assert.assertEquals(times.size(), index);
+            assertSameAsParse(ids.get((int) index), time, node, exponent);
+            times.add(time);
+        });
+        Assert.assertEquals(ids.size(), read);
+        Assert.assertEquals(ids.size(), times.size());
+    }
+
+    @Test
+    public void testCustomLayout() {
+        final IdLayout layout = IdLayout.builder()
+                .nodeDigits(5)
+                .exponentDigits(4)
+                .timestampPrecision(TimestampPrecision.CENTISECONDS)
+                .build();
+        final NodeIdGenerator generator = NodeIdGenerator.builder()
+                .node(12345)
+                .layout(layout)
+                .build();
+        final List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            ids.add(generator.generate("L").getId());
+        }
+        new BulkIdParser(layout, null, 0).parse(ids, (index, time, node, exponent) -> {
+            final Id id = generator.parse(ids.get((int) index)).orElse(null);
+            Assert.assertNotNull(id);
+            Assert.assertEquals(id.getGeneratedDate().getTime(), time);
+            Assert.assertEquals(12345, node);
+            Assert.assertEquals(id.getExponent(), exponent);
+        });
+    }
+
+    private void assertSameAsParse(String idString, long time, int node, int exponent) {
+        final Optional<Id> id = parser.parse(idString);
+        if (!id.isPresent()) {
+            Assert.assertEquals(IdParser.INVALID_TIME, time);
+            Assert.assertEquals(-1, node);
+            Assert.assertEquals(-1, exponent);
+            return;
+        }
+        Assert.assertEquals(id.get().getGeneratedDate().getTime(), time);
+        Assert.assertEquals(id.get().getNode(), node);
+        Assert.assertEquals(id.get().getExponent(), exponent);
+    }
+
+    private static List<String> ids(int count) {
+        IdGenerator.initialize(23);
+        final List<String> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            switch (i % 97) {
+                case 13:
+                    ids.add("");
+                    break;
+                case 29:
+                    ids.add("TOO_SHORT0123");
+                    break;
+                case 41:
+                    ids.add("BAD_MONTH" + "211301000000000" + "0023001");
+                    break;
+                default:
+                    ids.add(IdGenerator.generate("T" + (i % 7)).getId());
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Hands out a few bytes per read, so that ids are split across reads
+     */
+    private static final class TrickleInputStream extends InputStream {
+        private final byte[] data;
+        private int position;
+
+        private TrickleInputStream(byte[] data) {
+            this.data = data;
+        }
+
+        @Override
+        public int read() {
+            return position < data.length ? data[position++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (position >= data.length) {
+                return -1;
+            }
+            final int count = Math.min(Math.min(len, 7919), data.length - position);
+            System.arraycopy(data, position, b, off, count);
+            position += count;
+            return count;
+        }
+    }
+}
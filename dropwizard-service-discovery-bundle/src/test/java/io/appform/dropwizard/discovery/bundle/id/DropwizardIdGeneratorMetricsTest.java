@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableList;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test for {@link DropwizardIdGeneratorMetrics}
+ */
+public class DropwizardIdGeneratorMetricsTest {
+    private final MetricRegistry registry = new MetricRegistry();
+
+    @Before
+    public void setup() {
+        IdGenerator.initialize(23);
+        IdGenerator.useMetrics(new DropwizardIdGeneratorMetrics(registry));
+    }
+
+    @After
+    public void tearDown() {
+        IdGenerator.useMetrics(IdGeneratorMetrics.NOOP);
+    }
+
+    @Test
+    public void testGenerationMetrics() {
+        for (int i = 0; i < 10; i++) {
+            IdGenerator.generate("TST");
+        }
+        IdGenerator.generate("TST", 100);
+        IdGenerator.generateNumeric(new long[50]);
+        Assert.assertEquals(160, registry.getMeters().get(name("generated")).getCount());
+        Assert.assertTrue(registry.getHistograms().get(name("allocation", "probes")).getCount() >= 11);
+    }
+
+    @Test
+    public void testSamplesAreBounded() {
+        for (int i = 0; i < 20_000; i++) {
+            IdGenerator.generate("TST");
+        }
+        final Histogram probes = registry.getHistograms().get(name("allocation", "probes"));
+        Assert.assertTrue(probes.getCount() >= 20_000);
+        Assert.assertTrue(probes.getSnapshot().size() < 2_000);
+    }
+
+    @Test
+    public void testConstraintMetrics() {
+        IdGenerator.registerDomainSpecificConstraints("metrics", id -> true);
+        Assert.assertTrue(IdGenerator.generateWithConstraints("TST", "metrics").isPresent());
+        Assert.assertEquals(1, registry.getHistograms().get(name("constraints", "metrics", "attempts")).getCount());
+        Assert.assertEquals(10, IdGenerator.generateWithConstraints("TST", "metrics", 10).size());
+        Assert.assertEquals(2, registry.getHistograms().get(name("constraints", "metrics", "attempts")).getCount());
+
+        Assert.assertFalse(IdGenerator.generateWithConstraints("TST", ImmutableList.of(id -> false)).isPresent());
+        Assert.assertEquals(1, registry.getCounters().get(name("constraints", "exhausted")).getCount());
+        Assert.assertEquals(1, registry.getHistograms().get(name("constraints", "unnamed", "attempts")).getCount());
+    }
+
+    private static String name(String... names) {
+        return MetricRegistry.name(IdGenerator.class, names);
+    }
+}
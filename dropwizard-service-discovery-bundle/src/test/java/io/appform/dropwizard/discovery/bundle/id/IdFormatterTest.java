@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Test for {@link IdFormatter}
+ */
+public class IdFormatterTest {
+    private static final DateTimeFormatter LEGACY_FORMATTER = DateTimeFormat.forPattern("yyMMddHHmmssSSS");
+
+    @Test
+    public void testSameAsLegacyFormat() {
+        assertSameAsLegacyFormat(23);
+        assertSameAsLegacyFormat(0);
+        assertSameAsLegacyFormat(9999);
+    }
+
+    @Test
+    public void testSameAsLegacyFormatAcrossDstTransitions() {
+        final DateTimeZone defaultZone = DateTimeZone.getDefault();
+        try {
+            DateTimeZone.setDefault(DateTimeZone.forID("America/New_York"));
+            assertSameAsLegacyFormat(23);
+            DateTimeZone.setDefault(DateTimeZone.forID("Australia/Lord_Howe"));
+            assertSameAsLegacyFormat(23);
+        }
+        finally {
+            DateTimeZone.setDefault(defaultZone);
+        }
+    }
+
+    @Test
+    public void testGeneratedIdFormat() {
+        IdGenerator.initialize(23);
+        final Id id = IdGenerator.generate("TEST");
+        Assert.assertEquals(legacyFormat("TEST", id.getGeneratedDate().getTime(), 23, id.getExponent()), id.getId());
+    }
+
+    @Test
+    public void testCustomLayout() {
+        final IdLayout layout = IdLayout.builder()
+                .nodeDigits(6)
+                .exponentDigits(2)
+                .timestampPrecision(TimestampPrecision.CENTISECONDS)
+                .build();
+        final IdFormatter formatter = new IdFormatter(123456, layout);
+        final DateTimeFormatter centis = DateTimeFormat.forPattern("yyMMddHHmmssSS");
+        final Random random = new Random(123456);
+        long time = new DateTime(2021, 1, 1, 0, 0).getMillis();
+        for (int i = 0; i < 100_000; i++) {
+            time += random.nextInt(60_000);
+            final int exponent = random.nextInt(layout.maxIdsPerTick());
+            final String expected = String.format("ORD%s%06d%02d", centis.print(new DateTime(time)), 123456, exponent);
+            Assert.assertEquals(expected, formatter.format("ORD", time, exponent));
+        }
+        Assert.assertEquals(layout.suffixLength(), formatter.suffixLength());
+    }
+
+    @Test
+    public void testBytesAndBuilderSameAsFormat() {
+        final IdFormatter formatter = new IdFormatter(23);
+        final Random random = new Random(23);
+        final byte[] bytes = new byte[formatter.suffixLength() + 2];
+        final ByteBuffer heap = ByteBuffer.allocate(bytes.length);
+        final ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        final StringBuilder builder = new StringBuilder();
+        long time = new DateTime(2021, 1, 1, 0, 0).getMillis();
+        for (int i = 0; i < 100_000; i++) {
+            time += random.nextInt(60_000);
+            final int exponent = random.nextInt(Constants.MAX_ID_PER_MS);
+            final String expected = formatter.format("", time, exponent);
+            Assert.assertEquals(bytes.length, formatter.writeSuffix(bytes, 2, time, exponent));
+            Assert.assertEquals(expected, new String(bytes, 2, expected.length(), StandardCharsets.US_ASCII));
+            Assert.assertEquals(bytes.length, formatter.writeSuffix(heap, 2, time, exponent));
+            Assert.assertEquals(bytes.length, formatter.writeSuffix(direct, 2, time, exponent));
+            for (int j = 0; j < expected.length(); j++) {
+                Assert.assertEquals(bytes[j + 2], heap.get(j + 2));
+                Assert.assertEquals(bytes[j + 2], direct.get(j + 2));
+            }
+            builder.setLength(0);
+            Assert.assertEquals(expected, formatter.appendSuffix(builder, time, exponent).toString());
+        }
+        Assert.assertEquals(0, direct.position());
+    }
+
+    private static void assertSameAsLegacyFormat(int node) {
+        final IdFormatter formatter = new IdFormatter(node);
+        final Random random = new Random(node);
+        long time = new DateTime(2021, 1, 1, 0, 0).getMillis();
+        for (int i = 0; i < 500_000; i++) {
+            time += random.nextInt(60_000);
+            final int exponent = random.nextInt(Constants.MAX_ID_PER_MS);
+            Assert.assertEquals(legacyFormat("ORD", time, node, exponent), formatter.format("ORD", time, exponent));
+        }
+    }
+
+    private static String legacyFormat(String prefix, long time, int node, int exponent) {
+        return String.format("%s%s%04d%03d", prefix, LEGACY_FORMATTER.print(new DateTime(time)), node, exponent);
+    }
+}
@@ -20,21 +20,32 @@ package io.appform.dropwizard.discovery.bundle.id;
 import com.google.common.collect.ImmutableList;
 import io.appform.dropwizard.discovery.bundle.id.constraints.IdValidationConstraint;
 import io.appform.dropwizard.discovery.bundle.id.constraints.impl.JavaHashCodeBasedKeyPartitioner;
+import io.appform.dropwizard.discovery.bundle.id.constraints.impl.KeyPartitioner;
+import io.appform.dropwizard.discovery.bundle.id.constraints.impl.MurmurBasedKeyPartitioner;
 import io.appform.dropwizard.discovery.bundle.id.constraints.impl.PartitionValidator;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.awaitility.Awaitility;
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Test;
 
 import java.time.*;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Test for {@link IdGenerator}
@@ -137,6 +148,39 @@ public class IdGeneratorTest {
 
     }
 
+    @Test
+    public void testGenerateOnVirtualThreads() throws Exception {
+        final ExecutorService executorService = virtualThreadExecutor();
+        Assume.assumeNotNull(executorService);
+        IdGenerator.initialize(23);
+        IdGenerator.registerDomainSpecificConstraints("VT", id -> true);
+        final int numThreads = 10_000;
+        final int idsPerThread = 20;
+        final Set<String> ids = ConcurrentHashMap.newKeySet();
+        final long start = System.nanoTime();
+        final List<Future<?>> futures = new ArrayList<>(numThreads);
+        for (int i = 0; i < numThreads; i++) {
+            final boolean constrained = i % 2 == 0;
+            futures.add(executorService.submit(() -> {
+                for (int j = 0; j < idsPerThread; j++) {
+                    ids.add(constrained
+                            ? IdGenerator.generateWithConstraints("X", "VT").map(Id::getId).orElseThrow(IllegalStateException::new)
+                            : IdGenerator.generate("X").getId());
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        executorService.shutdown();
+
+        log.debug("Generated {} ids on {} virtual threads in {} ms", ids.size(), numThreads, elapsedMillis);
+        Assert.assertEquals(numThreads * idsPerThread, ids.size());
+        //A node can not generate more than 1000 ids per millisecond, so ten seconds leaves a lot of room
+        Assert.assertTrue(elapsedMillis < 10_000);
+    }
+
     @Test
     public void testConstraintFailure() {
         IdGenerator.initialize(23);
@@ -146,6 +190,78 @@ public class IdGeneratorTest {
                 false).isPresent());
     }
 
+    @Test
+    public void testBatchGenerate() {
+        IdGenerator.initialize(23);
+        final List<Id> ids = IdGenerator.generate("TST", 5000);
+        Assert.assertEquals(5000, ids.size());
+        Assert.assertEquals(5000, ids.stream().map(Id::getId).distinct().count());
+        ids.forEach(id -> {
+            Assert.assertEquals(23, id.getNode());
+            Assert.assertTrue(IdGenerator.parse(id.getId()).isPresent());
+        });
+
+        final Id[] filled = new Id[100];
+        IdGenerator.generate("TST", filled);
+        Assert.assertTrue(Arrays.stream(filled).allMatch(Objects::nonNull));
+    }
+
+    @Test
+    public void testBatchGenerateWithConstraints() {
+        IdGenerator.initialize(23);
+        final PartitionValidator validator = new PartitionValidator(4, new JavaHashCodeBasedKeyPartitioner(16));
+        final List<Id> ids = IdGenerator.generateWithConstraints(
+                "TST", Collections.singletonList(validator), false, 1000);
+        Assert.assertEquals(1000, ids.size());
+        Assert.assertTrue(ids.stream().allMatch(validator::isValid));
+        Assert.assertEquals(1000, ids.stream().map(Id::getId).distinct().count());
+    }
+
+    @Test
+    public void testBatchConstraintFailure() {
+        IdGenerator.initialize(23);
+        Assert.assertTrue(IdGenerator.generateWithConstraints(
+                "TST",
+                ImmutableList.of(id -> false),
+                false,
+                10).isEmpty());
+    }
+
+    @Test
+    public void testGenerateForPartition() {
+        IdGenerator.initialize(23);
+        final KeyPartitioner partitioner = new MurmurBasedKeyPartitioner(1024);
+        final Set<String> ids = new HashSet<>();
+        for (int i = 0; i < 2048; i++) {
+            final int partition = i % 1024;
+            final Optional<Id> id = IdGenerator.generateForPartition("TST", partition, partitioner);
+            Assert.assertTrue(id.isPresent());
+            Assert.assertEquals(partition, partitioner.partition(id.get()));
+            Assert.assertTrue(ids.add(id.get().getId()));
+        }
+    }
+
+    @Test
+    public void testGenerateForPartitionNeedsRandomAllocation() {
+        IdGenerator.initialize(23, AllocationMode.SEQUENTIAL);
+        try {
+            IdGenerator.generateForPartition("TST", 1, new MurmurBasedKeyPartitioner(1024));
+            Assert.fail("Sequential allocation should be rejected");
+        }
+        catch (IllegalStateException e) {
+            //Expected
+        }
+        finally {
+            IdGenerator.initialize(23);
+        }
+    }
+
+    @Test
+    public void testGenerateForPartitionNotFound() {
+        IdGenerator.initialize(23);
+        Assert.assertFalse(IdGenerator.generateForPartition("TST", 17, id -> 16).isPresent());
+    }
+
     @Test
     public void testParseFailure() {
         //Null or Empty String
@@ -199,6 +315,19 @@ public class IdGeneratorTest {
     }
 
 
+    /**
+     * Virtual threads are available only from JDK 21 onwards, null on older runtimes.
+     * CI runs this test on JDK 21 with the jdk21 profile.
+     */
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
     private Date generateDate(int year, int month, int day, int hour, int min, int sec, int ms, ZoneId zoneId) {
         return Date.from(
                 Instant.from(
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for {@link IdLayout}
+ */
+public class IdLayoutTest {
+
+    @Test
+    public void testDefaultLayout() {
+        final IdLayout layout = IdLayout.builder().build();
+        Assert.assertEquals(new IdLayout(), layout);
+        Assert.assertEquals(IdParser.SUFFIX_LENGTH, layout.suffixLength());
+        Assert.assertEquals(IdFormatter.TIMESTAMP_LENGTH, layout.timestampLength());
+        Assert.assertEquals(Constants.MAX_NUM_NODES, layout.maxNodes());
+        Assert.assertEquals(Constants.MAX_ID_PER_MS, layout.maxIdsPerTick());
+        Assert.assertEquals(1, layout.tickMillis());
+    }
+
+    @Test
+    public void testCustomLayout() {
+        final IdLayout layout = IdLayout.builder()
+                .nodeDigits(6)
+                .exponentDigits(2)
+                .timestampPrecision(TimestampPrecision.SECONDS)
+                .build();
+        Assert.assertEquals(1_000_000, layout.maxNodes());
+        Assert.assertEquals(100, layout.maxIdsPerTick());
+        Assert.assertEquals(1000, layout.tickMillis());
+        Assert.assertEquals(12, layout.timestampLength());
+        Assert.assertEquals(20, layout.suffixLength());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooManyNodeDigits() {
+        IdLayout.builder().nodeDigits(IdLayout.MAX_NODE_DIGITS + 1).build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooManyExponentDigits() {
+        IdLayout.builder().exponentDigits(IdLayout.MAX_EXPONENT_DIGITS + 1).build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidConfiguredLayout() {
+        final IdLayout layout = new IdLayout();
+        layout.setNodeDigits(-1);
+        NodeIdGenerator.builder().layout(layout).build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNodeOutsideLayout() {
+        NodeIdGenerator.builder()
+                .node(100)
+                .layout(IdLayout.builder().nodeDigits(2).build())
+                .build();
+    }
+}
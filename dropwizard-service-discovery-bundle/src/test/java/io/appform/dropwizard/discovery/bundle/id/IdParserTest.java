@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Optional;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Test for {@link IdParser}
+ */
+public class IdParserTest {
+    private static final DateTimeFormatter LEGACY_FORMATTER = DateTimeFormat.forPattern("yyMMddHHmmssSSS");
+    private static final Pattern LEGACY_PATTERN = Pattern.compile("(.*)([0-9]{15})([0-9]{4})([0-9]{3})");
+    private static final char[] ALPHABET = "0123456789ABZ_-\n\r\u0085\u2028\u2029".toCharArray();
+
+    private final IdParser parser = new IdParser();
+
+    @Test
+    public void testParseGeneratedIds() {
+        IdGenerator.initialize(23);
+        for (int i = 0; i < 10_000; i++) {
+            final Id id = IdGenerator.generate("TEST");
+            Assert.assertEquals(id, parser.parse(id.getId()).orElse(null));
+        }
+    }
+
+    @Test
+    public void testSameAsLegacyParse() {
+        assertSameAsLegacyParse();
+    }
+
+    @Test
+    public void testSameAsLegacyParseAcrossDstTransitions() {
+        final DateTimeZone defaultZone = DateTimeZone.getDefault();
+        try {
+            DateTimeZone.setDefault(DateTimeZone.forID("America/New_York"));
+            assertSameAsLegacyParse();
+            assertSameAsLegacyParse("T210314023000000" + "0023001", "T211107013000000" + "0023001");
+            DateTimeZone.setDefault(DateTimeZone.forID("Australia/Lord_Howe"));
+            assertSameAsLegacyParse();
+            assertSameAsLegacyParse("T211003021500000" + "0023001", "T210404013000000" + "0023001");
+        }
+        finally {
+            DateTimeZone.setDefault(defaultZone);
+        }
+    }
+
+    @Test
+    public void testInvalidTimestamps() {
+        assertSameAsLegacyParse("T210229000000000" + "0023001",
+                                "T200229000000000" + "0023001",
+                                "T211301000000000" + "0023001",
+                                "T210001000000000" + "0023001",
+                                "T210100000000000" + "0023001",
+                                "T210431000000000" + "0023001",
+                                "T210101240000000" + "0023001",
+                                "T210101006000000" + "0023001",
+                                "T210101000060000" + "0023001",
+                                "T991231235959999" + "9999999",
+                                "T000101000000000" + "0000000");
+    }
+
+    @Test
+    public void testSuffixSelection() {
+        assertSameAsLegacyParse("A2101010000000000023001B2101010000000000023002",
+                                "2101010000000000023001\n2101010000000000023002",
+                                "X\n2101010000000000023001\r\n2101010000000000023002",
+                                "21010100000000000230011",
+                                "210101000000000002300\n1",
+                                "2101010000000000023001\u2028",
+                                "\u20292101010000000000023001",
+                                null,
+                                "",
+                                "TEST");
+    }
+
+    @Test
+    public void testRandomInputs() {
+        final Random random = new Random(7);
+        final long start = new DateTime(2000, 1, 1, 0, 0).getMillis();
+        for (int i = 0; i < 200_000; i++) {
+            final StringBuilder id = new StringBuilder();
+            final int length = random.nextInt(64);
+            for (int j = 0; j < length; j++) {
+                id.append(random.nextInt(4) == 0
+                          ? ALPHABET[random.nextInt(ALPHABET.length)]
+                          : ALPHABET[random.nextInt(10)]);
+            }
+            if (random.nextBoolean()) {
+                id.insert(random.nextInt(id.length() + 1),
+                          LEGACY_FORMATTER.print(start + (random.nextLong() & Long.MAX_VALUE) % 1_500_000_000_000L)
+                                  + "0023001");
+            }
+            assertSameAsLegacyParse(id.toString());
+        }
+    }
+
+    private void assertSameAsLegacyParse() {
+        final Random random = new Random(23);
+        long time = new DateTime(2021, 1, 1, 0, 0).getMillis();
+        for (int i = 0; i < 200_000; i++) {
+            time += random.nextInt(600_000);
+            assertSameAsLegacyParse(String.format("ORD%s%04d%03d",
+                                                  LEGACY_FORMATTER.print(time),
+                                                  random.nextInt(10_000),
+                                                  random.nextInt(Constants.MAX_ID_PER_MS)));
+        }
+    }
+
+    private void assertSameAsLegacyParse(String... ids) {
+        for (String id : ids) {
+            Assert.assertEquals(id, legacyParse(id), parser.parse(id));
+        }
+    }
+
+    private static Optional<Id> legacyParse(final String idString) {
+        if (idString == null
+                || idString.length() < 22) {
+            return Optional.empty();
+        }
+        try {
+            Matcher matcher = LEGACY_PATTERN.matcher(idString);
+            if (matcher.find()) {
+                return Optional.of(Id.builder()
+                                           .id(idString)
+                                           .node(Integer.parseInt(matcher.group(3)))
+                                           .exponent(Integer.parseInt(matcher.group(4)))
+                                           .generatedDate(LEGACY_FORMATTER.parseDateTime(matcher.group(2)).toDate())
+                                           .build());
+            }
+            return Optional.empty();
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+    }
+}
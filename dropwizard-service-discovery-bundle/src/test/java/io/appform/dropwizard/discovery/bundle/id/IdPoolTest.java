@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import io.appform.dropwizard.discovery.bundle.id.constraints.impl.JavaHashCodeBasedKeyPartitioner;
+import io.appform.dropwizard.discovery.bundle.id.constraints.impl.PartitionValidator;
+import org.awaitility.Awaitility;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Test for {@link IdPool}
+ */
+public class IdPoolTest {
+
+    @Test
+    public void testPoolIsFilled() throws Exception {
+        IdGenerator.initialize(23);
+        try (IdPool pool = IdPool.builder()
+                .prefix("TST")
+                .capacity(256)
+                .build()) {
+            pool.start();
+            Awaitility.await()
+                    .atMost(Duration.ofSeconds(5))
+                    .until(() -> pool.available() == 256);
+            final Set<String> ids = ConcurrentHashMap.newKeySet();
+            for (int i = 0; i < 10_000; i++) {
+                final Optional<Id> id = pool.next();
+                Assert.assertTrue(id.isPresent());
+                Assert.assertTrue(id.get().getId().startsWith("TST"));
+                Assert.assertTrue(ids.add(id.get().getId()));
+            }
+        }
+    }
+
+    @Test
+    public void testInlineFallback() {
+        IdGenerator.initialize(23);
+        final IdPool pool = IdPool.builder()
+                .prefix("TST")
+                .build();
+        Assert.assertEquals(0, pool.available());
+        Assert.assertTrue(pool.next().isPresent());
+    }
+
+    @Test
+    public void testMaxAge() throws Exception {
+        IdGenerator.initialize(23);
+        try (IdPool pool = IdPool.builder()
+                .prefix("TST")
+                .capacity(64)
+                .maxAge(Duration.ofMillis(100))
+                .build()) {
+            pool.start();
+            for (int i = 0; i < 5; i++) {
+                Thread.sleep(150);
+                final long now = System.currentTimeMillis();
+                for (int j = 0; j < 100; j++) {
+                    final Id id = pool.next().orElse(null);
+                    Assert.assertNotNull(id);
+                    Assert.assertTrue(now - id.getGeneratedDate().getTime() <= 100);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testDomainConstraints() throws Exception {
+        IdGenerator.initialize(23);
+        final PartitionValidator validator = new PartitionValidator(4, new JavaHashCodeBasedKeyPartitioner(16));
+        IdGenerator.registerDomainSpecificConstraints("pool-domain", validator);
+        try (IdPool pool = IdPool.builder()
+                .prefix("TST")
+                .domain("pool-domain")
+                .capacity(128)
+                .build()) {
+            pool.start();
+            for (int i = 0; i < 1000; i++) {
+                Assert.assertTrue(validator.isValid(pool.next().orElseThrow(IllegalStateException::new)));
+            }
+        }
+    }
+
+    @Test
+    public void testIdlePoolIsNotRefreshed() throws Exception {
+        IdGenerator.initialize(23);
+        try (IdPool pool = IdPool.builder()
+                .prefix("TST")
+                .capacity(64)
+                .maxAge(Duration.ofMillis(20))
+                .build()) {
+            pool.start();
+            Awaitility.await()
+                    .atMost(Duration.ofSeconds(5))
+                    .until(() -> pool.available() == 64);
+            Thread.sleep(200);
+            //Expired ids are not replaced until ids are asked for
+            Assert.assertEquals(64, pool.available());
+            final long now = System.currentTimeMillis();
+            final Id id = pool.next().orElse(null);
+            Assert.assertNotNull(id);
+            Assert.assertTrue(id.getGeneratedDate().getTime() >= now - 20);
+            Awaitility.await()
+                    .atMost(Duration.ofSeconds(5))
+                    .until(() -> pool.available() == 64);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidWatermarks() {
+        IdPool.builder()
+                .prefix("TST")
+                .capacity(64)
+                .lowWatermark(64)
+                .highWatermark(32)
+                .build();
+    }
+
+    @Test
+    public void testRingBufferConcurrency() throws Exception {
+        final IdRingBuffer buffer = new IdRingBuffer(64);
+        final int numThreads = 4;
+        final int perThread = 50_000;
+        final Set<String> taken = ConcurrentHashMap.newKeySet();
+        final ExecutorService executorService = Executors.newFixedThreadPool(2 * numThreads);
+        final List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < numThreads; i++) {
+            final int producer = i;
+            futures.add(executorService.submit(() -> {
+                for (int j = 0; j < perThread; j++) {
+                    final Id id = new Id(producer + "-" + j, new Date(), producer, 0);
+                    while (!buffer.offer(id)) {
+                        Thread.yield();
+                    }
+                }
+            }));
+            futures.add(executorService.submit(() -> {
+                int count = 0;
+                while (count < perThread) {
+                    final Id id = buffer.poll();
+                    if (null == id) {
+                        Thread.yield();
+                        continue;
+                    }
+                    Assert.assertTrue(taken.add(id.getId()));
+                    count++;
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executorService.shutdownNow();
+        Assert.assertEquals(numThreads * perThread, taken.size());
+        Assert.assertNull(buffer.poll());
+        Assert.assertEquals(0, buffer.size());
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Test for {@link IdRange}
+ */
+public class IdRangeTest {
+
+    @Test
+    public void testGeneratedIdsInRange() {
+        IdGenerator.initialize(23);
+        final Date from = new Date();
+        final List<Id> ids = IdGenerator.generate("TST", 5000);
+        final Date to = new Date();
+        final IdRange range = IdGenerator.range("TST", from, to);
+        ids.forEach(id -> Assert.assertTrue(id.getId(), range.contains(id.getId())));
+    }
+
+    @Test
+    public void testBoundsExcludeOutsideWindow() {
+        final IdFormatter formatter = new IdFormatter(23);
+        final long from = new DateTime(2021, 6, 1, 10, 0).getMillis();
+        final long to = from + 60_000;
+        final IdRange range = IdRange.of("TST", from, to, new IdLayout());
+        Assert.assertTrue(range.contains(formatter.format("TST", from, 0)));
+        Assert.assertTrue(range.contains(formatter.format("TST", to, 999)));
+        Assert.assertFalse(range.contains(formatter.format("TST", from - 1, 999)));
+        Assert.assertFalse(range.contains(formatter.format("TST", to + 1, 0)));
+        Assert.assertFalse(range.contains(formatter.format("TSU", from + 1, 0)));
+    }
+
+    @Test
+    public void testCustomLayout() {
+        final IdLayout layout = IdLayout.builder()
+                .nodeDigits(6)
+                .exponentDigits(2)
+                .timestampPrecision(TimestampPrecision.SECONDS)
+                .build();
+        final IdFormatter formatter = new IdFormatter(123456, layout);
+        final long from = new DateTime(2021, 6, 1, 10, 0, 0, 500).getMillis();
+        final long to = from + 1000;
+        final IdRange range = IdRange.of("TST", from, to, layout);
+        //Ids carry the start of their tick, which can be before the window start
+        Assert.assertTrue(range.contains(formatter.format("TST", from - 500, 0)));
+        Assert.assertTrue(range.contains(formatter.format("TST", to, 99)));
+        Assert.assertFalse(range.contains(formatter.format("TST", from - 501, 99)));
+    }
+
+    @Test
+    public void testAcrossDstTransitions() {
+        final DateTimeZone defaultZone = DateTimeZone.getDefault();
+        try {
+            DateTimeZone.setDefault(DateTimeZone.forID("America/New_York"));
+            //Clocks go back from 02:00 EDT to 01:00 EST
+            assertWindowInRange(new DateTime(2021, 11, 7, 5, 30, DateTimeZone.UTC).getMillis(), 3_600_000);
+            assertWindowInRange(new DateTime(2021, 11, 7, 5, 50, DateTimeZone.UTC).getMillis(), 1_800_000);
+            //Clocks go forward from 02:00 EST to 03:00 EDT
+            assertWindowInRange(new DateTime(2021, 3, 14, 6, 30, DateTimeZone.UTC).getMillis(), 3_600_000);
+            DateTimeZone.setDefault(DateTimeZone.forID("Australia/Lord_Howe"));
+            assertWindowInRange(new DateTime(2021, 4, 3, 14, 45, DateTimeZone.UTC).getMillis(), 1_800_000);
+        }
+        finally {
+            DateTimeZone.setDefault(defaultZone);
+        }
+    }
+
+    @Test
+    public void testNumericBounds() {
+        IdGenerator.initialize(23);
+        final long from = System.currentTimeMillis();
+        final long[] ids = new long[5000];
+        IdGenerator.generateNumeric(ids);
+        final long to = System.currentTimeMillis();
+        final long min = NumericIdCodec.lowerBound(from);
+        final long max = NumericIdCodec.upperBound(to);
+        for (long id : ids) {
+            Assert.assertTrue(id >= min && id <= max);
+        }
+        Assert.assertEquals(NumericIdCodec.lowerBound(to + 1) - 1, max);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvertedWindow() {
+        IdGenerator.range("TST", new Date(1000), new Date(999));
+    }
+
+    private static void assertWindowInRange(long from, long length) {
+        final IdFormatter formatter = new IdFormatter(9999);
+        final IdRange range = IdRange.of("TST", from, from + length, new IdLayout());
+        final Random random = new Random(from);
+        for (int i = 0; i < 100_000; i++) {
+            final long time = from + (long) (random.nextDouble() * length);
+            final String id = formatter.format("TST", time, random.nextInt(Constants.MAX_ID_PER_MS));
+            Assert.assertTrue(id + " not in " + range, range.contains(id));
+        }
+        Assert.assertTrue(range.contains(formatter.format("TST", from, 0)));
+        Assert.assertTrue(range.contains(formatter.format("TST", from + length, 999)));
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Test for {@link MonotonicTimeSource}
+ */
+public class MonotonicTimeSourceTest {
+    private final AtomicLong clock = new AtomicLong();
+    private final List<Long> stepBacks = new ArrayList<>();
+    private Path checkpointFile;
+
+    @Before
+    public void setup() throws Exception {
+        checkpointFile = Files.createTempFile("id-clock", ".checkpoint");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(checkpointFile);
+    }
+
+    @Test
+    public void testNeverGoesBack() {
+        final MonotonicTimeSource timeSource = MonotonicTimeSource.builder()
+                .delegate(clock::get)
+                .build();
+        timeSource.useMetrics(new IdGeneratorMetrics() {
+            @Override
+            public void clockSteppedBack(long millis) {
+                stepBacks.add(millis);
+            }
+        });
+        clock.set(1000);
+        Assert.assertEquals(1000, timeSource.currentTimeMillis());
+        clock.set(500);
+        Assert.assertEquals(1000, timeSource.currentTimeMillis());
+        clock.set(600);
+        Assert.assertEquals(1000, timeSource.currentTimeMillis());
+        clock.set(1001);
+        Assert.assertEquals(1001, timeSource.currentTimeMillis());
+        clock.set(900);
+        Assert.assertEquals(1001, timeSource.currentTimeMillis());
+        //Reported once per regression, not once per read
+        Assert.assertEquals(2, stepBacks.size());
+        Assert.assertEquals(500L, (long) stepBacks.get(0));
+        Assert.assertEquals(101L, (long) stepBacks.get(1));
+    }
+
+    @Test
+    public void testResumeAboveCheckpoint() throws Exception {
+        clock.set(1_600_000_000_500L);
+        try (MonotonicTimeSource timeSource = MonotonicTimeSource.builder()
+                .delegate(clock::get)
+                .checkpointFile(checkpointFile)
+                .reserveMillis(1000)
+                .build()) {
+            Assert.assertEquals(1_600_000_000_500L, timeSource.currentTimeMillis());
+            //Written when reserved, not on close
+            Assert.assertEquals(1_600_000_001_500L, ByteBuffer.wrap(Files.readAllBytes(checkpointFile)).getLong());
+        }
+        //Restarted with the clock behind the times handed out before
+        clock.set(1_600_000_000_000L);
+        try (MonotonicTimeSource timeSource = MonotonicTimeSource.builder()
+                .delegate(clock::get)
+                .checkpointFile(checkpointFile)
+                .build()) {
+            Assert.assertEquals(1_600_000_001_501L, timeSource.currentTimeMillis());
+        }
+        //Ids with second ticks resume in the next second
+        try (MonotonicTimeSource timeSource = MonotonicTimeSource.builder()
+                .delegate(clock::get)
+                .checkpointFile(checkpointFile)
+                .tickMillis(1000)
+                .build()) {
+            Assert.assertEquals(1_600_000_002_000L, timeSource.currentTimeMillis());
+        }
+    }
+
+    @Test
+    public void testReservationIsExtendedAhead() throws Exception {
+        clock.set(1_600_000_000_000L);
+        try (MonotonicTimeSource timeSource = MonotonicTimeSource.builder()
+                .delegate(clock::get)
+                .checkpointFile(checkpointFile)
+                .reserveMillis(100)
+                .build()) {
+            for (long time = 1_600_000_000_000L; time < 1_600_000_001_000L; time++) {
+                clock.set(time);
+                timeSource.currentTimeMillis();
+                final long reserved = ByteBuffer.wrap(Files.readAllBytes(checkpointFile)).getLong();
+                Assert.assertTrue(reserved - time >= 50);
+            }
+        }
+    }
+
+    @Test
+    public void testReservationCoversLead() throws Exception {
+        clock.set(1_600_000_000_000L);
+        try (MonotonicTimeSource timeSource = MonotonicTimeSource.builder()
+                .delegate(clock::get)
+                .checkpointFile(checkpointFile)
+                .leadMillis(500)
+                .build()) {
+            for (long time = 1_600_000_000_000L; time < 1_600_000_003_000L; time++) {
+                clock.set(time);
+                timeSource.currentTimeMillis();
+                final long reserved = ByteBuffer.wrap(Files.readAllBytes(checkpointFile)).getLong();
+                Assert.assertTrue(reserved - time >= 500);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReservationShorterThanLead() {
+        MonotonicTimeSource.builder()
+                .delegate(clock::get)
+                .reserveMillis(100)
+                .leadMillis(100)
+                .build();
+    }
+
+    @Test
+    public void testRestartIsNotAStepBack() throws Exception {
+        clock.set(1_600_000_000_500L);
+        try (MonotonicTimeSource timeSource = MonotonicTimeSource.builder()
+                .delegate(clock::get)
+                .checkpointFile(checkpointFile)
+                .build()) {
+            timeSource.currentTimeMillis();
+        }
+        try (MonotonicTimeSource timeSource = MonotonicTimeSource.builder()
+                .delegate(clock::get)
+                .checkpointFile(checkpointFile)
+                .build()) {
+            timeSource.useMetrics(new IdGeneratorMetrics() {
+                @Override
+                public void clockSteppedBack(long millis) {
+                    stepBacks.add(millis);
+                }
+            });
+            Assert.assertEquals(1_600_000_000_701L, timeSource.currentTimeMillis());
+            clock.set(1_600_000_000_800L);
+            Assert.assertEquals(1_600_000_000_800L, timeSource.currentTimeMillis());
+            Assert.assertTrue(stepBacks.isEmpty());
+            //A real step back is still reported
+            clock.set(1_600_000_000_000L);
+            Assert.assertEquals(1_600_000_000_800L, timeSource.currentTimeMillis());
+            Assert.assertEquals(1, stepBacks.size());
+        }
+    }
+
+    @Test
+    public void testNoReuseAfterClockStepBack() {
+        clock.set(1_600_000_000_000L);
+        final NodeIdGenerator generator = NodeIdGenerator.builder()
+                .node(23)
+                .allocationMode(AllocationMode.SEQUENTIAL)
+                .timeSource(MonotonicTimeSource.builder().delegate(clock::get).build())
+                .build();
+        final HashSet<String> ids = new HashSet<>();
+        generator.generate("TST", 400).forEach(id -> Assert.assertTrue(ids.add(id.getId())));
+        clock.set(1_600_000_000_000L - 60_000);
+        generator.generate("TST", 400).forEach(id -> Assert.assertTrue(ids.add(id.getId())));
+        clock.set(1_600_000_000_000L);
+        generator.generate("TST", 100).forEach(id -> {
+            Assert.assertTrue(ids.add(id.getId()));
+            Assert.assertEquals(1_600_000_000_000L, id.getGeneratedDate().getTime());
+        });
+    }
+}
@@ -0,0 +1,313 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import io.appform.dropwizard.discovery.bundle.id.constraints.IdValidationConstraint;
+import io.appform.dropwizard.discovery.bundle.id.constraints.impl.KeyPartitioner;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Test for {@link NodeIdGenerator}
+ */
+public class NodeIdGeneratorTest {
+
+    @Test
+    public void testPrefixScopedExponents() {
+        final NodeIdGenerator generator = NodeIdGenerator.builder()
+                .node(23)
+                .allocationMode(AllocationMode.SEQUENTIAL)
+                .prefixScoped(true)
+                .build();
+        //Every scoped prefix starts with a fresh counter, whatever the others have used up
+        Assert.assertEquals(0, generator.generate("ORD").getExponent());
+        Assert.assertEquals(0, generator.generate("TXN").getExponent());
+        Assert.assertEquals(0, generator.generate("PAY").getExponent());
+    }
+
+    @Test
+    public void testPrefixScopedUniqueness() throws Exception {
+        final NodeIdGenerator generator = NodeIdGenerator.builder()
+                .node(23)
+                .prefixScoped(true)
+                .maxScopedPrefixes(2)
+                .build();
+        final String[] prefixes = {"ORD", "TXN", "PAY", "REF"};
+        final Set<String> ids = ConcurrentHashMap.newKeySet();
+        final ExecutorService executorService = Executors.newFixedThreadPool(8);
+        final List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            final String prefix = prefixes[i % prefixes.length];
+            futures.add(executorService.submit(() -> {
+                for (int j = 0; j < 10_000; j++) {
+                    ids.add(generator.generate(prefix).getId());
+                }
+                generator.generate(prefix, 1000).forEach(id -> ids.add(id.getId()));
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executorService.shutdown();
+        Assert.assertEquals(8 * 11_000, ids.size());
+    }
+
+    @Test
+    public void testIndependentGenerators() {
+        final NodeIdGenerator first = NodeIdGenerator.builder().node(1).build();
+        final NodeIdGenerator second = NodeIdGenerator.builder().node(2).build();
+        first.registerDomainSpecificConstraints("ODD", id -> id.getExponent() % 2 == 1);
+        Assert.assertTrue(first.generateWithConstraints("TST", "ODD")
+                                  .map(id -> id.getExponent() % 2 == 1)
+                                  .orElse(false));
+        Assert.assertTrue(second.getDomainSpecificConstraints().isEmpty());
+        Assert.assertEquals(1, first.generate("TST").getNode());
+        Assert.assertEquals(2, second.generate("TST").getNode());
+    }
+
+    @Test
+    public void testCompiledConstraints() {
+        final NodeIdGenerator generator = NodeIdGenerator.builder()
+                .node(23)
+                .globalConstraints(Collections.singletonList(id -> id.getExponent() % 2 == 0))
+                .build();
+        generator.registerDomainSpecificConstraints("THREE", id -> id.getExponent() % 3 == 0);
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(0, generator.generateWithConstraints("TST", "THREE", false)
+                    .map(id -> id.getExponent() % 6)
+                    .orElse(-1)
+                    .intValue());
+            Assert.assertEquals(0, generator.generateWithConstraints("TST", "THREE")
+                    .map(id -> id.getExponent() % 3)
+                    .orElse(-1)
+                    .intValue());
+        }
+        Assert.assertTrue(generator.generateWithConstraints("TST", "THREE", 100)
+                                  .stream()
+                                  .allMatch(id -> id.getExponent() % 3 == 0));
+        Assert.assertTrue(generator.generateWithConstraints(
+                "TST", Collections.singletonList(id -> id.getExponent() % 5 == 0), false, 100)
+                                  .stream()
+                                  .allMatch(id -> id.getExponent() % 10 == 0));
+
+        //Registration swaps in a new snapshot without touching the old one
+        generator.registerGlobalConstraints(id -> id.getExponent() % 7 == 0);
+        Assert.assertEquals(0, generator.generateWithConstraints("TST", Collections.emptyList())
+                .map(id -> id.getExponent() % 14)
+                .orElse(-1)
+                .intValue());
+    }
+
+    @Test
+    public void testThrowingConstraintIsRetried() {
+        final NodeIdGenerator generator = NodeIdGenerator.builder().node(23).build();
+        final AtomicInteger calls = new AtomicInteger();
+        final IdValidationConstraint flaky = id -> {
+            if (calls.incrementAndGet() < 5) {
+                throw new IllegalStateException("Not ready");
+            }
+            return true;
+        };
+        Assert.assertTrue(generator.generateWithConstraints("TST", Collections.singletonList(flaky)).isPresent());
+        Assert.assertEquals(5, calls.get());
+    }
+
+    @Test
+    public void testAllocationModeSwitchDoesNotReuseExponents() throws Exception {
+        final AtomicLong clock = new AtomicLong(1_600_000_000_000L);
+        final NodeIdGenerator sequential = NodeIdGenerator.builder()
+                .node(23)
+                .allocationMode(AllocationMode.SEQUENTIAL)
+                .timeSource(MonotonicTimeSource.builder().delegate(clock::get).build())
+                .build();
+        final Set<String> ids = new HashSet<>();
+        sequential.generate("TST", Constants.MAX_ID_PER_MS / 2)
+                .forEach(id -> Assert.assertTrue(ids.add(id.getId())));
+        //The switch has to wait for the clock to move past the tick the old allocator has used
+        final ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor();
+        try {
+            executorService.schedule(() -> clock.addAndGet(1), 50, TimeUnit.MILLISECONDS);
+            final NodeIdGenerator random = sequential.reinitialize(23, AllocationMode.RANDOM);
+            Assert.assertEquals(AllocationMode.RANDOM, random.getAllocationMode());
+            random.generate("TST", Constants.MAX_ID_PER_MS / 2)
+                    .forEach(id -> Assert.assertTrue(ids.add(id.getId())));
+        }
+        finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testPartitionTablesPerPrefixAndPartitioner() {
+        final AtomicLong clock = new AtomicLong(1_600_000_000_000L);
+        final NodeIdGenerator generator = NodeIdGenerator.builder()
+                .node(23)
+                .timeSource(MonotonicTimeSource.builder().delegate(clock::get).build())
+                .build();
+        final Set<String> hashed = new HashSet<>();
+        final List<String> rehashed = new ArrayList<>();
+        final KeyPartitioner first = id -> {
+            if (!hashed.add("first:" + id.getId())) {
+                rehashed.add(id.getId());
+            }
+            return Math.abs(id.getId().hashCode()) % 16;
+        };
+        final KeyPartitioner second = id -> {
+            if (!hashed.add("second:" + id.getId())) {
+                rehashed.add(id.getId());
+            }
+            return Math.abs(id.getId().hashCode() / 7) % 16;
+        };
+        //Interleaved calls keep using the partitions already computed for the tick
+        for (int i = 0; i < 40; i++) {
+            final int partition = i % 16;
+            Assert.assertTrue(generator.generateForPartition("ORD", partition, first).isPresent());
+            Assert.assertTrue(generator.generateForPartition("TXN", partition, first).isPresent());
+            Assert.assertTrue(generator.generateForPartition("ORD", partition, second).isPresent());
+        }
+        Assert.assertTrue(rehashed.toString(), rehashed.isEmpty());
+    }
+
+    @Test
+    public void testThrowingConstraintInBatch() {
+        final NodeIdGenerator generator = NodeIdGenerator.builder().node(23).build();
+        final AtomicInteger calls = new AtomicInteger();
+        //Throws for every other id, which counts as a failed attempt for that id only
+        final IdValidationConstraint flaky = id -> {
+            if (calls.incrementAndGet() % 2 == 0) {
+                throw new IllegalStateException("Not ready");
+            }
+            return true;
+        };
+        Assert.assertEquals(100, generator.generateWithConstraints(
+                "TST", Collections.singletonList(flaky), true, 100).size());
+
+        final IdValidationConstraint broken = id -> {
+            throw new IllegalStateException("Broken");
+        };
+        Assert.assertTrue(generator.generateWithConstraints(
+                "TST", Collections.singletonList(broken), true, 10).isEmpty());
+    }
+
+    @Test
+    public void testFacadeDelegation() {
+        final NodeIdGenerator generator = NodeIdGenerator.builder().node(42).build();
+        IdGenerator.initialize(generator);
+        try {
+            Assert.assertSame(generator, IdGenerator.getGenerator());
+            Assert.assertEquals(42, IdGenerator.generate("TST").getNode());
+            IdGenerator.registerDomainSpecificConstraints("FACADE", id -> true);
+            Assert.assertTrue(generator.getDomainSpecificConstraints().containsKey("FACADE"));
+            IdGenerator.initialize(42);
+            Assert.assertSame(generator, IdGenerator.getGenerator());
+            IdGenerator.initialize(43);
+            Assert.assertEquals(43, IdGenerator.getGenerator().getNodeId());
+            Assert.assertTrue(IdGenerator.getGenerator().getDomainSpecificConstraints().containsKey("FACADE"));
+        }
+        finally {
+            IdGenerator.cleanUp();
+        }
+    }
+
+    @Test
+    public void testCustomLayout() {
+        final NodeIdGenerator generator = NodeIdGenerator.builder()
+                .node(123456)
+                .layout(IdLayout.builder()
+                                .nodeDigits(6)
+                                .exponentDigits(2)
+                                .timestampPrecision(TimestampPrecision.CENTISECONDS)
+                                .build())
+                .build();
+        //Five times the per tick budget, so generation has to move on to later ticks
+        final List<Id> ids = generator.generate("ORD", 500);
+        Assert.assertEquals(500, ids.stream().map(Id::getId).distinct().count());
+        for (Id id : ids) {
+            Assert.assertEquals("ORD".length() + 22, id.getId().length());
+            Assert.assertEquals(0, id.getGeneratedDate().getTime() % 10);
+            Assert.assertEquals(id, generator.parse(id.getId()).orElse(null));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testNumericIdsNeedDefaultSizedLayout() {
+        NodeIdGenerator.builder()
+                .layout(IdLayout.builder().nodeDigits(5).build())
+                .build()
+                .generateNumeric();
+    }
+
+    @Test
+    public void testGenerateIntoBuffers() {
+        final NodeIdGenerator generator = NodeIdGenerator.builder()
+                .node(23)
+                .build();
+        final EncodedPrefix prefix = EncodedPrefix.of("TXN");
+        final int length = generator.encodedLength(prefix);
+        Assert.assertEquals(25, length);
+
+        final byte[] bytes = new byte[length + 1];
+        final long fromBytes = generator.generate(prefix, bytes, 1);
+        assertWrittenId(generator, new String(bytes, 1, length, StandardCharsets.UTF_8), fromBytes);
+
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(length + 1);
+        final long fromBuffer = generator.generate(prefix, buffer, 1);
+        final byte[] copied = new byte[length];
+        buffer.position(1);
+        buffer.get(copied);
+        assertWrittenId(generator, new String(copied, StandardCharsets.UTF_8), fromBuffer);
+
+        final StringBuilder builder = new StringBuilder("key:");
+        final long fromBuilder = generator.generate(prefix, builder);
+        Assert.assertTrue(builder.toString().startsWith("key:TXN"));
+        assertWrittenId(generator, builder.substring(4), fromBuilder);
+
+        try {
+            generator.generate(prefix, new byte[length], 1);
+            Assert.fail("Id does not fit");
+        }
+        catch (IndexOutOfBoundsException e) {
+            //Expected
+        }
+    }
+
+    private static void assertWrittenId(NodeIdGenerator generator, String written, long metadata) {
+        final Id parsed = generator.parse(written).orElse(null);
+        Assert.assertNotNull(parsed);
+        Assert.assertTrue(written.startsWith("TXN"));
+        Assert.assertEquals(23, parsed.getNode());
+        Assert.assertEquals(IdMetadata.time(metadata), parsed.getGeneratedDate().getTime());
+        Assert.assertEquals(IdMetadata.exponent(metadata), parsed.getExponent());
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.retry.RetryForever;
+import org.apache.curator.test.TestingServer;
+import org.apache.zookeeper.data.Stat;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Test for {@link NodeIdManager}
+ */
+public class NodeIdManagerTest {
+    private static final String PROCESS_NAME = "TestProcess";
+
+    private final AtomicInteger acquisitions = new AtomicInteger();
+    private final AtomicLong collisions = new AtomicLong();
+    private final IdGeneratorMetrics metrics = new IdGeneratorMetrics() {
+        @Override
+        public void nodeIdAcquired(long nanos, int collisionCount) {
+            Assert.assertTrue(nanos > 0);
+            acquisitions.incrementAndGet();
+            collisions.addAndGet(collisionCount);
+        }
+    };
+
+    private TestingServer testingServer;
+    private CuratorFramework curator;
+    private Path leaseFile;
+
+    @Before
+    public void setup() throws Exception {
+        testingServer = new TestingServer();
+        curator = newCurator();
+        leaseFile = Files.createTempFile("node-id", ".lease");
+        Files.delete(leaseFile);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        curator.close();
+        testingServer.close();
+        Files.deleteIfExists(leaseFile);
+    }
+
+    @Test
+    public void testConcurrentAcquisition() throws Exception {
+        final int numAcquirers = 1000;
+        final ExecutorService executorService = Executors.newFixedThreadPool(64);
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final List<Future<Integer>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < numAcquirers; i++) {
+                futures.add(executorService.submit(() -> {
+                    startLatch.await();
+                    return new NodeIdManager(curator, PROCESS_NAME, new IdLayout(), metrics).fixNodeId();
+                }));
+            }
+            startLatch.countDown();
+            final Set<Integer> nodes = new HashSet<>();
+            for (Future<Integer> future : futures) {
+                nodes.add(future.get());
+            }
+            Assert.assertEquals(numAcquirers, nodes.size());
+        }
+        finally {
+            executorService.shutdownNow();
+        }
+        Assert.assertEquals(numAcquirers, curator.getChildren().forPath("/id-generator/" + PROCESS_NAME).size());
+        Assert.assertEquals(numAcquirers, acquisitions.get());
+        //Picks are random over the free ids, so collisions stay rare even with everyone starting together
+        Assert.assertTrue("Too many collisions: " + collisions.get(), collisions.get() < numAcquirers);
+    }
+
+    @Test
+    public void testFillsAllNodesOfSmallLayout() throws Exception {
+        final IdLayout layout = IdLayout.builder()
+                .nodeDigits(1)
+                .build();
+        //Claim a few ids up front, so that the free ones have to be found around them
+        final CuratorPathUtils pathUtils = new CuratorPathUtils(PROCESS_NAME, layout);
+        curator.create().creatingParentContainersIfNeeded().forPath(pathUtils.path(3));
+        curator.create().creatingParentContainersIfNeeded().forPath(pathUtils.path(7));
+        curator.create().creatingParentContainersIfNeeded().forPath("/id-generator/" + PROCESS_NAME + "/junk");
+        final Set<Integer> nodes = new HashSet<>();
+        for (int i = 0; i < 8; i++) {
+            nodes.add(new NodeIdManager(curator, PROCESS_NAME, layout, metrics).fixNodeId());
+        }
+        Assert.assertEquals(8, nodes.size());
+        Assert.assertFalse(nodes.contains(3));
+        Assert.assertFalse(nodes.contains(7));
+        Assert.assertEquals(0, collisions.get());
+    }
+
+    @Test
+    public void testReclaimsLeasedNode() throws Exception {
+        final int leased = leasingManager(curator).fixNodeId();
+        Assert.assertTrue(Files.exists(leaseFile));
+        //Closing the session drops the ephemeral node, as a process exiting would
+        curator.close();
+        curator = newCurator();
+        Assert.assertEquals(leased, leasingManager(curator).fixNodeId());
+        Assert.assertEquals(0, collisions.get());
+    }
+
+    @Test
+    public void testLiveOwnerKeepsLeasedNode() throws Exception {
+        final CuratorFramework previousRun = newCurator();
+        try {
+            final int leased = leasingManager(previousRun).fixNodeId();
+            final long owner = previousRun.getZookeeperClient().getZooKeeper().getSessionId();
+            //The session holding the leased node is still connected, so the node must be left to it
+            Assert.assertNotEquals(leased, leasingManager(curator).fixNodeId());
+            final Stat stat = curator.checkExists().forPath(new CuratorPathUtils(PROCESS_NAME).path(leased));
+            Assert.assertNotNull(stat);
+            Assert.assertEquals(owner, stat.getEphemeralOwner());
+        }
+        finally {
+            previousRun.close();
+        }
+    }
+
+    @Test
+    public void testTakenLeaseFallsBackToAcquisition() throws Exception {
+        final int leased = leasingManager(curator).fixNodeId();
+        //Same session, so the leased node is still held
+        final int acquired = leasingManager(curator).fixNodeId();
+        Assert.assertNotEquals(leased, acquired);
+        Assert.assertEquals(String.valueOf(acquired), new String(Files.readAllBytes(leaseFile)).split(",")[0]);
+    }
+
+    @Test
+    public void testUnusableLeasesFallBackToAcquisition() throws Exception {
+        Files.write(leaseFile, ("5," + (System.currentTimeMillis() - Duration.ofHours(2).toMillis())).getBytes());
+        final Set<Integer> nodes = new HashSet<>();
+        for (int i = 0; i < 10; i++) {
+            final int node = NodeIdManager.builder()
+                    .curatorFramework(curator)
+                    .processName(PROCESS_NAME)
+                    .layout(IdLayout.builder().nodeDigits(1).build())
+                    .leaseFile(leaseFile)
+                    .maxLeaseAge(Duration.ofHours(1))
+                    .build()
+                    .fixNodeId();
+            nodes.add(node);
+            Files.write(leaseFile, "garbage".getBytes());
+        }
+        Assert.assertEquals(10, nodes.size());
+    }
+
+    @Test
+    public void testNodeIdOfChild() {
+        final CuratorPathUtils pathUtils = new CuratorPathUtils(PROCESS_NAME);
+        Assert.assertEquals(23, pathUtils.nodeId("023"));
+        Assert.assertEquals(9999, pathUtils.nodeId("9999"));
+        Assert.assertEquals(-1, pathUtils.nodeId("10000"));
+        Assert.assertEquals(-1, pathUtils.nodeId("junk"));
+        Assert.assertEquals(-1, pathUtils.nodeId(""));
+        Assert.assertEquals("/id-generator/" + PROCESS_NAME + "/023", pathUtils.path(23));
+    }
+
+    private NodeIdManager leasingManager(CuratorFramework curatorFramework) {
+        return NodeIdManager.builder()
+                .curatorFramework(curatorFramework)
+                .processName(PROCESS_NAME)
+                .metrics(metrics)
+                .leaseFile(leaseFile)
+                .build();
+    }
+
+    private CuratorFramework newCurator() {
+        final CuratorFramework curatorFramework = CuratorFrameworkFactory.builder()
+                .connectString(testingServer.getConnectString())
+                .namespace("test")
+                .retryPolicy(new RetryForever(100))
+                .build();
+        curatorFramework.start();
+        return curatorFramework;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Test for the {@link NodeIdProvider}s that do not need zookeeper
+ */
+public class NodeIdProviderTest {
+    private static final IdLayout LAYOUT = new IdLayout();
+
+    @Test
+    public void testStatic() {
+        Assert.assertEquals(23, new StaticNodeIdProvider(23, LAYOUT).nodeId());
+        Assert.assertEquals(9999, new StaticNodeIdProvider(9999, LAYOUT).nodeId());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testStaticOutOfRange() {
+        new StaticNodeIdProvider(10, IdLayout.builder().nodeDigits(1).build());
+    }
+
+    @Test
+    public void testEnvironment() {
+        final Map<String, String> environment = ImmutableMap.of("HOSTNAME", "orders-api-12",
+                                                                "NODE_ID", "4321",
+                                                                "BAD", "orders-api",
+                                                                "BIG", "orders-api-10000");
+        Assert.assertEquals(12, new EnvironmentNodeIdProvider(null, LAYOUT, environment::get).nodeId());
+        Assert.assertEquals(4321, new EnvironmentNodeIdProvider("NODE_ID", LAYOUT, environment::get).nodeId());
+        assertFails(new EnvironmentNodeIdProvider("BAD", LAYOUT, environment::get));
+        assertFails(new EnvironmentNodeIdProvider("BIG", LAYOUT, environment::get));
+        assertFails(new EnvironmentNodeIdProvider("MISSING", LAYOUT, environment::get));
+    }
+
+    @Test
+    public void testIp() throws Exception {
+        final Set<Integer> nodes = new HashSet<>();
+        for (int i = 0; i < 256; i++) {
+            final InetAddress address = InetAddress.getByAddress(new byte[]{10, 2, 3, (byte) i});
+            final int node = new IpNodeIdProvider(LAYOUT, () -> new IpNodeIdProvider.HostAddress(address, 24))
+                    .nodeId();
+            Assert.assertEquals(i, node);
+            nodes.add(node);
+        }
+        Assert.assertEquals(256, nodes.size());
+
+        Assert.assertEquals(3 * 256 + 4, new IpNodeIdProvider(LAYOUT, "10.2.3.4/22").nodeId());
+        //No subnet, so the address is taken modulo the node ids when that is allowed
+        Assert.assertEquals(0x0A020304 % 10, new IpNodeIdProvider(IdLayout.builder().nodeDigits(1).build(),
+                                                                     "10.2.3.4", true).nodeId());
+        Assert.assertEquals(0xFFFFFFFFL % 10, new IpNodeIdProvider(IdLayout.builder().nodeDigits(1).build(),
+                                                                   "fd00::ffff:ffff/128", true).nodeId());
+    }
+
+    @Test
+    public void testIpRejectsUnusableAddresses() {
+        //Loopback, link local and any local addresses are shared across hosts
+        assertFails(new IpNodeIdProvider(LAYOUT, "127.0.1.1/8"));
+        assertFails(new IpNodeIdProvider(LAYOUT, "169.254.10.20/16"));
+        assertFails(new IpNodeIdProvider(LAYOUT, "0.0.0.0"));
+        //A /16 has more addresses than the default 10000 node ids
+        assertFails(new IpNodeIdProvider(LAYOUT, "10.2.3.4/16"));
+        Assert.assertEquals(3 * 256 + 4, new IpNodeIdProvider(IdLayout.builder().nodeDigits(5).build(),
+                                                              "10.2.3.4/16").nodeId());
+        assertFails(new IpNodeIdProvider(LAYOUT, "fd00::1/64"));
+        //Without a subnet, other hosts could be anywhere
+        assertFails(new IpNodeIdProvider(LAYOUT, "10.2.3.4"));
+        assertFails(new IpNodeIdProvider(LAYOUT, "10.2.3.4/32"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIpRejectsBadAddress() {
+        new IpNodeIdProvider(LAYOUT, "10.2.3.4/40").nodeId();
+    }
+
+    private static void assertFails(NodeIdProvider provider) {
+        try {
+            provider.nodeId();
+            Assert.fail("Node id should not be provided");
+        }
+        catch (IllegalStateException e) {
+            //Expected
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.OptionalLong;
+
+/**
+ * Test for {@link NumericIdCodec}
+ */
+public class NumericIdCodecTest {
+
+    @Test
+    public void testRoundTrip() {
+        IdGenerator.initialize(23);
+        for (int i = 0; i < 10_000; i++) {
+            final Id id = IdGenerator.generate("TEST");
+            final OptionalLong numericId = NumericIdCodec.encode(id.getId());
+            Assert.assertTrue(numericId.isPresent());
+            Assert.assertEquals(NumericIdCodec.encode(id), numericId.getAsLong());
+            Assert.assertEquals(id, NumericIdCodec.decode("TEST", numericId.getAsLong()));
+            Assert.assertTrue(Long.toString(numericId.getAsLong())
+                                      .endsWith(id.getId().substring(id.getId().length() - 7)));
+        }
+    }
+
+    @Test
+    public void testLayout() {
+        final long numericId = NumericIdCodec.encode(NumericIdCodec.EPOCH + 12345, 9999, 999);
+        Assert.assertEquals(123459999999L, numericId);
+        Assert.assertEquals(NumericIdCodec.EPOCH + 12345, NumericIdCodec.time(numericId));
+        Assert.assertEquals(9999, NumericIdCodec.node(numericId));
+        Assert.assertEquals(999, NumericIdCodec.exponent(numericId));
+    }
+
+    @Test
+    public void testGenerateNumeric() {
+        IdGenerator.initialize(23);
+        final long[] ids = new long[5000];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = IdGenerator.generateNumeric();
+        }
+        Assert.assertEquals(ids.length, Arrays.stream(ids).distinct().count());
+        Assert.assertTrue(Arrays.stream(ids).allMatch(id -> NumericIdCodec.node(id) == 23));
+        //Time ordered across milliseconds
+        for (int i = 1; i < ids.length; i++) {
+            Assert.assertTrue(NumericIdCodec.time(ids[i - 1]) <= NumericIdCodec.time(ids[i]));
+        }
+
+        final long[] batch = new long[5000];
+        IdGenerator.generateNumeric(batch);
+        Assert.assertEquals(batch.length, Arrays.stream(batch).distinct().count());
+        Assert.assertTrue(Arrays.stream(batch).noneMatch(id -> Arrays.stream(ids).anyMatch(other -> other == id)));
+    }
+
+    @Test
+    public void testInvalidString() {
+        Assert.assertFalse(NumericIdCodec.encode("TEST").isPresent());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTimeBeforeEpoch() {
+        NumericIdCodec.encode(NumericIdCodec.EPOCH - 1, 0, 0);
+    }
+}
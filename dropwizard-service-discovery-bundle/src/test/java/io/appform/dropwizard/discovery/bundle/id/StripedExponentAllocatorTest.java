@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import com.google.common.collect.ImmutableList;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.awaitility.Awaitility;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Test for {@link StripedExponentAllocator}
+ */
+@Slf4j
+public class StripedExponentAllocatorTest {
+
+    @Getter
+    private static final class Runner implements Callable<Long> {
+        private final ExponentAllocator allocator;
+        private volatile boolean stop = false;
+        private long count = 0L;
+
+        private Runner(ExponentAllocator allocator) {
+            this.allocator = allocator;
+        }
+
+        @Override
+        public Long call() throws Exception {
+            while (!stop) {
+                allocator.allocate();
+                count++;
+            }
+            return count;
+        }
+    }
+
+    @Test
+    public void testAllocationIsUniqueAcrossThreads() throws Exception {
+        final ExponentAllocator allocator = new StripedExponentAllocator(Constants.MAX_ID_PER_MS);
+        final int numThreads = 20;
+        final int perThread = 20_000;
+        final Set<Long> slots = ConcurrentHashMap.newKeySet();
+        final ExecutorService executorService = Executors.newFixedThreadPool(numThreads);
+        final List<Future<Boolean>> futures = new ArrayList<>();
+        for (int i = 0; i < numThreads; i++) {
+            futures.add(executorService.submit(() -> {
+                for (int j = 0; j < perThread; j++) {
+                    final long slot = allocator.allocate();
+                    final int exponent = ExponentAllocator.exponent(slot);
+                    Assert.assertTrue(exponent >= 0 && exponent < Constants.MAX_ID_PER_MS);
+                    Assert.assertTrue(slots.add(slot));
+                }
+                return true;
+            }));
+        }
+        for (Future<Boolean> future : futures) {
+            Assert.assertTrue(future.get());
+        }
+        executorService.shutdownNow();
+        Assert.assertEquals(numThreads * perThread, slots.size());
+    }
+
+    @Test
+    public void testSaturatedMillisecondMovesToNext() {
+        final ExponentAllocator allocator = new StripedExponentAllocator(Constants.MAX_ID_PER_MS);
+        final Map<Long, Integer> perMs = new HashMap<>();
+        for (int i = 0; i < 5 * Constants.MAX_ID_PER_MS; i++) {
+            perMs.merge(ExponentAllocator.time(allocator.allocate()), 1, Integer::sum);
+        }
+        perMs.values().forEach(count -> Assert.assertTrue(count <= Constants.MAX_ID_PER_MS));
+    }
+
+    @Test
+    public void testBatchAllocation() {
+        final ExponentAllocator allocator = new StripedExponentAllocator(Constants.MAX_ID_PER_MS);
+        final long[] slots = new long[5 * Constants.MAX_ID_PER_MS];
+        int reserved = 0;
+        while (reserved < slots.length) {
+            final int count = allocator.allocate(slots, reserved, slots.length - reserved);
+            Assert.assertTrue(count > 0 && count <= Constants.MAX_ID_PER_MS);
+            reserved += count;
+        }
+        Assert.assertEquals(slots.length, Arrays.stream(slots).distinct().count());
+        Assert.assertTrue(Arrays.stream(slots)
+                                  .allMatch(slot -> ExponentAllocator.exponent(slot) < Constants.MAX_ID_PER_MS));
+    }
+
+    @Test
+    public void testPartialStripe() {
+        final ExponentAllocator allocator = new StripedExponentAllocator(40);
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertTrue(ExponentAllocator.exponent(allocator.allocate()) < 40);
+        }
+    }
+
+    @Test
+    public void testLargeLayoutsAreNotPadded() {
+        //32 stripes a cache line apart for the default layout
+        Assert.assertEquals(32 * 64, StripedExponentAllocator.sizeInBytes(Constants.MAX_ID_PER_MS));
+        //A word per stripe for the largest one
+        Assert.assertEquals(31_250 * 8, StripedExponentAllocator.sizeInBytes(1_000_000));
+
+        final int maxExponents = 100_000;
+        final ExponentAllocator allocator = new StripedExponentAllocator(
+                maxExponents, 1, new SpinThenYieldWaitStrategy(), () -> 1_600_000_000_000L);
+        final boolean[] used = new boolean[maxExponents];
+        for (int i = 0; i < maxExponents; i++) {
+            final long slot = allocator.allocate();
+            Assert.assertEquals(1_600_000_000_000L, ExponentAllocator.time(slot));
+            final int exponent = ExponentAllocator.exponent(slot);
+            Assert.assertFalse(used[exponent]);
+            used[exponent] = true;
+        }
+    }
+
+    @Test
+    public void testThroughput() throws Exception {
+        final ExponentAllocator allocator = new StripedExponentAllocator(Constants.MAX_ID_PER_MS);
+        final int numRunners = 20;
+        final ImmutableList.Builder<Runner> listBuilder = ImmutableList.builder();
+        for (int i = 0; i < numRunners; i++) {
+            listBuilder.add(new Runner(allocator));
+        }
+        final List<Runner> runners = listBuilder.build();
+        final ExecutorService executorService = Executors.newFixedThreadPool(numRunners);
+        for (Runner runner : runners) {
+            executorService.submit(runner);
+        }
+        Awaitility.await()
+                .pollInterval(Duration.ofSeconds(5))
+                .timeout(Duration.ofSeconds(6))
+                .until(() -> true);
+        runners.forEach(runner -> runner.stop = true);
+        executorService.shutdownNow();
+
+        final long totalCount = runners.stream().mapToLong(Runner::getCount).sum();
+        log.debug("Allocated slot count: {}", totalCount);
+        log.debug("Allocated slot rate: {}/sec", totalCount / 5);
+        Assert.assertTrue(totalCount > 0);
+    }
+}
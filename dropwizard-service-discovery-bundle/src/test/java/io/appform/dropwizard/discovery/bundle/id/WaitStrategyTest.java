@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Test for {@link WaitStrategy} implementations
+ */
+public class WaitStrategyTest {
+
+    @Test
+    public void testWaitForNextTick() {
+        final AtomicLong clock = new AtomicLong(100);
+        Assert.assertEquals(101, new SpinThenYieldWaitStrategy().await(100, clock::incrementAndGet));
+        Assert.assertEquals(102, new ParkingWaitStrategy(1000).await(101, clock::incrementAndGet));
+        Assert.assertEquals(103, new SpinThenYieldWaitStrategy(0).await(102, clock::incrementAndGet));
+    }
+
+    @Test
+    public void testBorrowWithinBound() {
+        final AtomicLong clock = new AtomicLong(100);
+        final BorrowingWaitStrategy strategy = new BorrowingWaitStrategy(2, new SpinThenYieldWaitStrategy());
+        Assert.assertEquals(101, strategy.await(100, clock::get));
+        Assert.assertEquals(102, strategy.await(101, clock::get));
+        Assert.assertEquals(100, clock.get());
+        //Three ticks ahead is beyond the bound, so the clock has to move first
+        Assert.assertEquals(103, strategy.await(102, clock::incrementAndGet));
+        Assert.assertEquals(101, clock.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBorrowBeyondClockLag() {
+        new BorrowingWaitStrategy(Constants.MAX_CLOCK_LAG_MS + 1, new ParkingWaitStrategy());
+    }
+
+    @Test
+    public void testBorrowedSlotsAreUniqueAndMonotonic() {
+        for (AllocationMode mode : AllocationMode.values()) {
+            final ExponentAllocator allocator = mode.allocator(10, 1, WaitMode.BORROW.strategy(2));
+            final Set<Long> slots = new HashSet<>();
+            long last = 0;
+            for (int i = 0; i < 5000; i++) {
+                final long slot = allocator.allocate();
+                final long time = ExponentAllocator.time(slot);
+                Assert.assertTrue(slots.add(slot));
+                Assert.assertTrue(time >= last);
+                Assert.assertTrue(time - System.currentTimeMillis() <= 2);
+                last = time;
+            }
+        }
+    }
+
+    @Test
+    public void testSaturationIsCounted() {
+        final AtomicInteger saturated = new AtomicInteger();
+        final ExponentAllocator allocator = AllocationMode.SEQUENTIAL.allocator(10, 1, new ParkingWaitStrategy());
+        allocator.useMetrics(new IdGeneratorMetrics() {
+            @Override
+            public void saturated() {
+                saturated.incrementAndGet();
+            }
+        });
+        for (int i = 0; i < 25; i++) {
+            allocator.allocate();
+        }
+        Assert.assertTrue(saturated.get() >= 2);
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id.constraints.impl;
+
+import com.google.common.hash.Hashing;
+import io.appform.dropwizard.discovery.bundle.id.Id;
+import io.appform.dropwizard.discovery.bundle.id.IdGenerator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Test for {@link RawIdKeyPartitioner}s
+ */
+public class RawIdKeyPartitionerTest {
+
+    @Test
+    public void testHashMatchesMurmur3() {
+        final Random random = new Random(11);
+        for (int i = 0; i < 100_000; i++) {
+            final StringBuilder value = new StringBuilder();
+            final int length = random.nextInt(40);
+            for (int j = 0; j < length; j++) {
+                switch (random.nextInt(4)) {
+                    case 0:
+                        value.append((char) (0x80 + random.nextInt(0x780)));
+                        break;
+                    case 1:
+                        value.append((char) random.nextInt(Character.MAX_VALUE + 1));
+                        break;
+                    case 2:
+                        value.appendCodePoint(Character.MIN_SUPPLEMENTARY_CODE_POINT
+                                                      + random.nextInt(Character.MAX_CODE_POINT
+                                                                               - Character.MIN_SUPPLEMENTARY_CODE_POINT));
+                        break;
+                    default:
+                        value.append((char) random.nextInt(0x80));
+                }
+            }
+            final String string = value.toString();
+            Assert.assertEquals(string,
+                                Hashing.murmur3_32().hashBytes(string.getBytes(StandardCharsets.UTF_8)).asInt(),
+                                Murmur3Hashing.hash32(string));
+        }
+    }
+
+    @Test
+    public void testPartitionsInRange() {
+        IdGenerator.initialize(23);
+        final RawIdKeyPartitioner[] partitioners = new RawIdKeyPartitioner[]{
+                new Murmur32KeyPartitioner(1000),
+                new PowerOfTwoKeyPartitioner(1024),
+                new JumpConsistentHashKeyPartitioner(1000)
+        };
+        for (int i = 0; i < 10_000; i++) {
+            final Id id = IdGenerator.generate("TST");
+            for (RawIdKeyPartitioner partitioner : partitioners) {
+                final int partition = partitioner.partition(id);
+                Assert.assertTrue(partition >= 0 && partition < 1024);
+                Assert.assertEquals(partition, partitioner.partition(new StringBuilder(id.getId())));
+            }
+        }
+    }
+
+    @Test
+    public void testJumpConsistentHash() {
+        IdGenerator.initialize(23);
+        for (int i = 0; i < 10_000; i++) {
+            final String id = IdGenerator.generate("TST").getId();
+            final long key = Murmur3Hashing.hash32(id) & 0xFFFFFFFFL;
+            int previous = 0;
+            for (int partitions = 1; partitions <= 64; partitions++) {
+                final int partition = new JumpConsistentHashKeyPartitioner(partitions).partition(id);
+                Assert.assertEquals(Hashing.consistentHash(key, partitions), partition);
+                //Growing the partition count moves ids only to the new partition
+                Assert.assertTrue(partition == previous || partition == partitions - 1);
+                previous = partition;
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPowerOfTwoCheck() {
+        new PowerOfTwoKeyPartitioner(1000);
+    }
+
+    @Test
+    public void testJavaHashCodeMinValue() {
+        final Id id = new Id("polygenelubricants", null, 0, 0);
+        Assert.assertEquals(Integer.MIN_VALUE, id.getId().hashCode());
+        final int partition = new JavaHashCodeBasedKeyPartitioner(1000).partition(id);
+        Assert.assertTrue(partition >= 0 && partition < 1000);
+    }
+}